@@ -1,13 +1,33 @@
 package bss.Data;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import javax.swing.ImageIcon;
 
@@ -33,6 +53,67 @@ public class DataAccess {
     //static String filePath = "src/main/resources/";
     static String filePath = "classes/";
 
+    /** Extension of the binary search-term files written by {@link #writeSearchTerms(String, List)} */
+    static final String SEARCH_TERM_EXTENSION = ".terms";
+
+    /** Number of times each file has been written through {@link #writeToJson(String, Object)} or {@link #writeSearchTerms(String, List)} */
+    static ConcurrentHashMap<String, Integer> versions = new ConcurrentHashMap<>();
+
+    /** Gson used for writing files meant to be read by people, which pretty-prints. NaN is written for the conversion rate of a search term without clicks, which Gson reads leniently. */
+    static final Gson prettyGson = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+
+    /** Gson used for writing large files only read by the application, without whitespace */
+    static final Gson compactGson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+    /** Latest object queued by {@link #writeToJson(String, Object, boolean)} for each file that has not been written yet */
+    static final HashMap<String, PendingWrite> pendingWrites = new HashMap<>();
+
+    /** Completion of the latest write queued for each file, removed once it has finished */
+    static final HashMap<String, CompletableFuture<Void>> queuedWrites = new HashMap<>();
+
+    /** Background thread that writes the queued files in order */
+    static final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "json writer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    static {
+        // daemon threads keep running while shutdown hooks run, so queued writes can finish
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DataAccess.flush();
+            }
+        }, "json writer shutdown"));
+    }
+
+    /**
+     * An object queued to be written to a file, and how to write it.
+     */
+    static class PendingWrite {
+
+        /** The object to serialize. */
+        final Object obj;
+
+        /** The Gson to serialize it with, or null to write a list of search terms to the binary file. */
+        final Gson gson;
+
+        /**
+         * Constructs a PendingWrite.
+         * 
+         * @param obj the object to serialize
+         * @param gson the Gson to serialize it with, or null to write search terms to the binary file
+         */
+        PendingWrite(Object obj, Gson gson) {
+            this.obj = obj;
+            this.gson = gson;
+        }
+    }
+
     private DataAccess() {
     }
     
@@ -56,6 +137,18 @@ public class DataAccess {
         return getClass().getResourceAsStream(DataAccess.filePath + fileName + ".json");
     }
 
+    /**
+     * Opens a resource file for reading as UTF-8, the charset every file is written with, whatever the
+     * platform's default charset is.
+     * 
+     * @param path the full path to the file
+     * @return the reader
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    public static InputStreamReader openReader(String path) throws FileNotFoundException {
+        return new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8);
+    }
+
     /**
      * Reads data from a JSON file and deserializes it into an object of the specified type.
      * 
@@ -66,30 +159,184 @@ public class DataAccess {
     public static Object readFromJson(String fileName, Type type) {
         //InputStream in = instance.getInputStream(fileName);
         //BufferedReader fr = new BufferedReader(new InputStreamReader(in));
-        try {
-            FileReader fr = new FileReader(DataAccess.getPath(fileName) + ".json");
+        DataAccess.awaitWrite(fileName);
+        try (InputStreamReader fr = DataAccess.openReader(DataAccess.getPath(fileName) + ".json")) {
             Gson gson = new Gson();
             Object val = gson.fromJson(new JsonReader(fr), type);
             return val;
         } catch (FileNotFoundException e) {
             System.out.println("can't read file " + DataAccess.getPath(fileName) + ".json");
             return null;
+        } catch (IOException e) {
+            System.out.println("can't close file " + DataAccess.getPath(fileName) + ".json");
+            return null;
         }
     }
 
     /**
-     * Serializes an object to JSON and writes it to a file.
+     * Returns the version of a file, which changes every time a write to the file is made or queued through this class.
+     * <p>
+     * Callers that cache data derived from a file can compare versions to know when to rebuild.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return the current version of the file
+     */
+    public static int getVersion(String fileName) {
+        return DataAccess.versions.getOrDefault(fileName, 0);
+    }
+
+    /**
+     * Queues an object to be serialized to JSON and written to a file in the background.
+     * <p>
+     * Writes to the same file are coalesced, so only the latest object queued before the writer gets to
+     * the file is written. The object is serialized straight into a temporary file that is then renamed
+     * over the file, so a crash never leaves a truncated file. The object must not be modified after it
+     * is passed in. Reads through this class wait for the file's pending write, and {@link #flush()} waits
+     * for every pending write.
+     * </p>
      * 
      * @param fileName the name of the file (without extension) to write to
      * @param obj the object to serialize and write
      */
     public static void writeToJson(String fileName, Object obj) {
-        try (FileWriter fw = new FileWriter(DataAccess.getPath(fileName) + ".json")) {
-            GsonBuilder gsonBuilder = new GsonBuilder();
-            String jsonStr = gsonBuilder.setPrettyPrinting().create().toJson(obj);
-            fw.write(jsonStr);
-        } catch (IOException ex) {
-            System.out.println("can't write to file " + fileName);
+        DataAccess.writeToJson(fileName, obj, true);
+    }
+
+    /**
+     * Queues an object to be serialized to JSON and written to a file in the background, as in
+     * {@link #writeToJson(String, Object)}, optionally without whitespace.
+     * 
+     * @param fileName the name of the file (without extension) to write to
+     * @param obj the object to serialize and write
+     * @param pretty whether to pretty-print the file, which makes large files several times bigger
+     */
+    public static void writeToJson(String fileName, Object obj, boolean pretty) {
+        DataAccess.queueWrite(fileName, new PendingWrite(obj, pretty ? DataAccess.prettyGson : DataAccess.compactGson));
+    }
+
+    /**
+     * Queues a write to a file on the writer thread, replacing the write already queued for the file if it
+     * has not started yet.
+     * 
+     * @param fileName the name of the file (without extension) to write to
+     * @param pending the object to write and how to write it
+     */
+    static void queueWrite(String fileName, PendingWrite pending) {
+        synchronized (DataAccess.pendingWrites) {
+            DataAccess.versions.merge(fileName, 1, Integer::sum);
+            boolean queued = DataAccess.pendingWrites.containsKey(fileName);
+            DataAccess.pendingWrites.put(fileName, pending);
+            if (!queued) {
+                CompletableFuture<Void> write = CompletableFuture.runAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        DataAccess.writePending(fileName);
+                    }
+                }, DataAccess.writer);
+                DataAccess.queuedWrites.put(fileName, write);
+                write.whenComplete(new BiConsumer<Void, Throwable>() {
+                    @Override
+                    public void accept(Void result, Throwable ex) {
+                        synchronized (DataAccess.pendingWrites) {
+                            DataAccess.queuedWrites.remove(fileName, write);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Writes the latest object queued for a file. Runs on the writer thread.
+     * <p>
+     * Any failure, including one thrown by Gson while serializing, is reported and leaves the previous
+     * file in place, so a failed write never fails the threads waiting for it.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension) to write to
+     */
+    static void writePending(String fileName) {
+        PendingWrite pending;
+        synchronized (DataAccess.pendingWrites) {
+            pending = DataAccess.pendingWrites.remove(fileName);
+        }
+        if (pending.gson == null) {
+            @SuppressWarnings("unchecked")
+            List<? extends SearchTerm> searchTerms = (List<? extends SearchTerm>) pending.obj;
+            if (DataAccess.saveSearchTermFile(fileName, searchTerms, DataAccess.getJsonStamp(fileName))) {
+                return;
+            }
+            pending = new PendingWrite(searchTerms, DataAccess.prettyGson);
+        }
+
+        Path file = Paths.get(DataAccess.getPath(fileName) + ".json");
+        Path temp = Paths.get(DataAccess.getPath(fileName) + ".json.tmp");
+        try {
+            try (Writer w = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                pending.gson.toJson(pending.obj, w);
+            }
+            DataAccess.replaceFile(temp, file);
+        } catch (IOException | RuntimeException ex) {
+            System.out.println("can't write to file " + fileName + ": " + ex);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                System.out.println("can't delete file " + temp);
+            }
+        }
+    }
+
+    /**
+     * Moves a temporary file over a file, atomically if the file system supports it.
+     * 
+     * @param temp the temporary file
+     * @param file the file to replace
+     * @throws IOException if the file cannot be replaced
+     */
+    static void replaceFile(Path temp, Path file) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until the pending write to a file, if any, has finished.
+     * <p>
+     * A failed write is reported and otherwise ignored, so the caller reads the previous file.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension)
+     */
+    public static void awaitWrite(String fileName) {
+        CompletableFuture<Void> write;
+        synchronized (DataAccess.pendingWrites) {
+            write = DataAccess.queuedWrites.get(fileName);
+        }
+        if (write != null) {
+            try {
+                write.join();
+            } catch (CompletionException ex) {
+                System.out.println("can't write to file " + fileName + ": " + ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Waits until every write queued by {@link #writeToJson(String, Object)} has finished. Called when the
+     * application shuts down.
+     */
+    public static void flush() {
+        CompletableFuture<?>[] writes;
+        synchronized (DataAccess.pendingWrites) {
+            writes = DataAccess.queuedWrites.values().toArray(new CompletableFuture<?>[0]);
+        }
+        try {
+            CompletableFuture.allOf(writes).join();
+        } catch (CompletionException ex) {
+            System.out.println("can't write all files: " + ex.getCause());
         }
     }
 
@@ -109,22 +356,250 @@ public class DataAccess {
     }
 
     /**
-     * Reads test data from a JSON file and returns it as an {@link ArrayList} of {@link SearchTerm}.
+     * Reads test data and returns it as an {@link ArrayList} of {@link SearchTerm}.
      * 
      * @return the list of test data
      */
     public static ArrayList<SearchTerm> getTestData() {
-        return (ArrayList<SearchTerm>) DataAccess.readFromJson("testData", new TypeToken<ArrayList<SearchTerm>>(){}.getType());
+        return DataAccess.getSearchTermList("testData");
+    }
+
+    /**
+     * Reads search terms and returns them as an {@link ArrayList} of {@link SearchTerm}.
+     * <p>
+     * The binary file written by {@link #writeSearchTerms(String, List)} is used if it is current. Otherwise
+     * the JSON file is imported into a new binary file first.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return the list of search terms, or {@code null} if the file is not found
+     */
+    public static ArrayList<SearchTerm> getSearchTermList(String fileName) {
+        SearchTermFile file = DataAccess.getSearchTermFile(fileName);
+        if (file != null) {
+            return new ArrayList<>(file);
+        }
+        return DataAccess.readSearchTermJson(fileName);
     }
 
     /**
      * Reads search terms from a JSON file and returns them as an {@link ArrayList} of {@link SearchTerm}.
      * 
      * @param fileName the name of the JSON file (without extension)
-     * @return the list of search terms
+     * @return the list of search terms, or {@code null} if the file is not found
      */
-    public static ArrayList<SearchTerm> getSearchTermList(String fileName) {
-        return (ArrayList<SearchTerm>) DataAccess.readFromJson(fileName, new TypeToken<ArrayList<SearchTerm>>(){}.getType());
+    static ArrayList<SearchTerm> readSearchTermJson(String fileName) {
+        SearchTermReader reader = DataAccess.openSearchTerms(fileName);
+        if (reader == null) {
+            return null;
+        }
+        ArrayList<SearchTerm> kwList = new ArrayList<>();
+        try (SearchTermReader r = reader) {
+            while (r.hasNext()) {
+                kwList.add(r.next());
+            }
+        } catch (IOException ex) {
+            System.out.println("can't close file " + DataAccess.getPath(fileName) + ".json");
+        }
+        return kwList;
+    }
+
+    /**
+     * Opens a JSON file of search terms for reading one search term at a time. The caller must close the reader.
+     * 
+     * @param fileName the name of the JSON file (without extension)
+     * @return the reader, or {@code null} if the file is not found
+     */
+    public static SearchTermReader openSearchTerms(String fileName) {
+        DataAccess.awaitWrite(fileName);
+        try {
+            return new SearchTermReader(new BufferedReader(DataAccess.openReader(DataAccess.getPath(fileName) + ".json")));
+        } catch (FileNotFoundException e) {
+            System.out.println("can't read file " + DataAccess.getPath(fileName) + ".json");
+            return null;
+        }
+    }
+
+    /**
+     * Streams the search terms of a dataset, decoding or reading them as the stream is consumed.
+     * <p>
+     * The binary file is used as in {@link #getSearchTermList(String)}. If there is none, the JSON file is
+     * read instead, and the stream should be closed, e.g. with try-with-resources, to close it.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return the stream of search terms, empty if the file is not found
+     */
+    public static Stream<SearchTerm> streamSearchTerms(String fileName) {
+        SearchTermFile file = DataAccess.getSearchTermFile(fileName);
+        if (file != null) {
+            return file.stream();
+        }
+        SearchTermReader reader = DataAccess.openSearchTerms(fileName);
+        return reader != null ? reader.stream() : Stream.<SearchTerm>empty();
+    }
+
+    /**
+     * Opens the binary file of a search-term dataset, importing the JSON file if the binary file does not
+     * correspond to it.
+     * <p>
+     * The binary file records the length and modification time of the JSON file when it is written. If the
+     * JSON file has changed since, for instance because it was replaced by hand or written as a fallback,
+     * it is imported again. Binary files of the first version, which have no such record, are compared by
+     * modification time.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return the search terms, or {@code null} if neither file can be read or the import failed
+     */
+    public static SearchTermFile getSearchTermFile(String fileName) {
+        DataAccess.awaitWrite(fileName);
+        File binary = new File(DataAccess.getPath(fileName) + SEARCH_TERM_EXTENSION);
+        File json = new File(DataAccess.getPath(fileName) + ".json");
+        long[] source = DataAccess.getJsonStamp(fileName);
+        if (binary.isFile()) {
+            try {
+                SearchTermFile file = SearchTermFile.open(binary.toPath());
+                boolean current = file.hasSource() ? file.isCurrent(source[0], source[1]) : binary.lastModified() >= json.lastModified();
+                if (current || !json.isFile()) {
+                    return file;
+                }
+            } catch (IOException ex) {
+                System.out.println("can't read file " + binary.getPath() + ": " + ex.getMessage());
+            }
+        }
+        if (!json.isFile()) {
+            return null;
+        }
+
+        ArrayList<SearchTerm> kwList = DataAccess.readSearchTermJson(fileName);
+        if (kwList == null || !DataAccess.saveSearchTermFile(fileName, kwList, source)) {
+            return null;
+        }
+        try {
+            return SearchTermFile.open(binary.toPath());
+        } catch (IOException ex) {
+            System.out.println("can't read file " + binary.getPath() + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gets the length and modification time of the JSON file of a dataset, which the binary file records.
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return the length and modification time, or {@link SearchTermFile#NO_SOURCE} twice if there is no JSON file
+     */
+    static long[] getJsonStamp(String fileName) {
+        File json = new File(DataAccess.getPath(fileName) + ".json");
+        if (!json.isFile()) {
+            return new long[] {SearchTermFile.NO_SOURCE, SearchTermFile.NO_SOURCE};
+        }
+        return new long[] {json.length(), json.lastModified()};
+    }
+
+    /**
+     * Queues search terms to be written to the binary file of a dataset in the background.
+     * <p>
+     * The write is queued and coalesced like {@link #writeToJson(String, Object)}, and the version of the
+     * dataset changes right away, so the list must not be modified after it is passed in. If the binary file
+     * cannot be replaced, for instance because it is still mapped on Windows, the search terms are written
+     * to the JSON file instead, which is then imported on the next read.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension) to write to
+     * @param searchTerms the search terms to write
+     */
+    public static void writeSearchTerms(String fileName, List<? extends SearchTerm> searchTerms) {
+        DataAccess.queueWrite(fileName, new PendingWrite(searchTerms, null));
+    }
+
+    /**
+     * Writes search terms to a temporary file and moves it over the binary file of a dataset, without
+     * changing the version of the dataset.
+     * 
+     * @param fileName the name of the file (without extension) to write to
+     * @param searchTerms the search terms to write
+     * @param source the length and modification time of the JSON file the search terms supersede, from {@link #getJsonStamp(String)}
+     * @return true if the binary file was replaced
+     */
+    static boolean saveSearchTermFile(String fileName, List<? extends SearchTerm> searchTerms, long[] source) {
+        Path binary = Paths.get(DataAccess.getPath(fileName) + SEARCH_TERM_EXTENSION);
+        Path temp = Paths.get(DataAccess.getPath(fileName) + SEARCH_TERM_EXTENSION + ".tmp");
+        try {
+            SearchTermFile.write(temp, searchTerms, source[0], source[1]);
+            DataAccess.replaceFile(temp, binary);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            System.out.println("can't write to file " + binary + ": " + ex.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                System.out.println("can't delete file " + temp);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Writes the search terms of a dataset's binary file to its JSON file, for instance to inspect them or
+     * to use them with an older version of the application.
+     * <p>
+     * The export runs on the writer thread after the writes already queued for the dataset. The binary file
+     * then records the new JSON file, so the JSON file is not imported again, and the version of the dataset
+     * does not change.
+     * </p>
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return true if the JSON file was written
+     */
+    public static boolean exportSearchTerms(String fileName) {
+        // imports the JSON file first if it is newer, so there is a current binary file to export
+        if (DataAccess.getSearchTermFile(fileName) == null) {
+            return false;
+        }
+        return CompletableFuture.supplyAsync(new Supplier<Boolean>() {
+            @Override
+            public Boolean get() {
+                return DataAccess.writeSearchTermJson(fileName);
+            }
+        }, DataAccess.writer).join();
+    }
+
+    /**
+     * Writes the search terms of a dataset's binary file to its JSON file. Runs on the writer thread.
+     * 
+     * @param fileName the name of the file (without extension)
+     * @return true if the JSON file was written
+     */
+    static boolean writeSearchTermJson(String fileName) {
+        Path binary = Paths.get(DataAccess.getPath(fileName) + SEARCH_TERM_EXTENSION);
+        Path file = Paths.get(DataAccess.getPath(fileName) + ".json");
+        Path temp = Paths.get(DataAccess.getPath(fileName) + ".json.tmp");
+        try {
+            SearchTermFile searchTerms = SearchTermFile.open(binary);
+            long[] source = DataAccess.getJsonStamp(fileName);
+            if (!searchTerms.isCurrent(source[0], source[1])) {
+                // a queued write fell back to the JSON file, which is newer
+                System.out.println("not exporting " + binary + ", " + file + " is newer");
+                return false;
+            }
+            try (Writer w = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                DataAccess.prettyGson.toJson(searchTerms, new TypeToken<List<SearchTerm>>(){}.getType(), w);
+            }
+            DataAccess.replaceFile(temp, file);
+            source = DataAccess.getJsonStamp(fileName);
+            SearchTermFile.setSource(binary, source[0], source[1]);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            System.out.println("can't export " + binary + " to " + file + ": " + ex);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                System.out.println("can't delete file " + temp);
+            }
+            return false;
+        }
     }
 
     /**
@@ -151,11 +626,10 @@ public class DataAccess {
      * @return the keyword dictionary, or {@code null} if the file cannot be accessed
      */
     public static KeywordDictionary getDictionary() {
-        try {
+        try (InputStreamReader fr = DataAccess.openReader(DataAccess.getPath("dictionary") + ".json")) {
             Gson gson = new Gson();
-            FileReader fr = new FileReader(DataAccess.getPath("dictionary") + ".json");
             return gson.fromJson(new JsonReader(fr), KeywordDictionary.class);
-        } catch (FileNotFoundException ex) {
+        } catch (IOException ex) {
             System.out.println("cannot access " + DataAccess.getPath("dictionary") + ".json");
             return null;
         } 
@@ -173,12 +647,11 @@ public class DataAccess {
         if (DataAccess.instance == null) {
             DataAccess.instance = new DataAccess();
 
-            try {
-                FileReader fr = new FileReader(DataAccess.getPath("dataAccessTest") + ".json");
+            try (InputStreamReader fr = DataAccess.openReader(DataAccess.getPath("dataAccessTest") + ".json")) {
                 Gson gson = new Gson();
                 Object val = gson.fromJson(new JsonReader(fr), new TypeToken<String>(){}.getType());
                 System.out.println(val);
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 DataAccess.filePath = "src/main/resources/";
             }
         }
@@ -0,0 +1,236 @@
+package bss.Data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import bss.Keywords.Keyword;
+import bss.Keywords.SearchTerm;
+
+/**
+ * Keeps the datasets that the user interface reads repeatedly in memory, so that they are only read from
+ * disk when they change.
+ * <p>
+ * Each dataset is loaded through {@link DataAccess} the first time it is requested and shared as an
+ * unmodifiable snapshot. A snapshot is reloaded when the file is written through {@link DataAccess} or
+ * when the modification time of the file changes.
+ * </p>
+ * <p>
+ * Snapshots are shallow: the map or list cannot be changed, but the keywords in it are the same mutable
+ * objects every caller receives, and calls such as {@link Keyword#tokenize()} would change them for
+ * everyone. Callers must not modify the keywords in a snapshot; code that changes a dataset reads its own
+ * copy from {@link DataAccess} and writes it back.
+ * </p>
+ */
+public class DataRepository {
+
+    /** Number of requests answered from memory. */
+    static final AtomicInteger hits = new AtomicInteger();
+
+    /** Number of requests that had to read the dataset from disk. */
+    static final AtomicInteger misses = new AtomicInteger();
+
+    /** The Amazon product titles. */
+    static final CachedDataset<Map<String, Keyword>> amazonTitles = new CachedDataset<>("amazonTitles", new Supplier<Map<String, Keyword>>() {
+        @Override
+        public Map<String, Keyword> get() {
+            LinkedHashMap<String, Keyword> amazonList = DataAccess.getAmazonList();
+            return amazonList != null ? Collections.unmodifiableMap(amazonList) : null;
+        }
+    }, ".json");
+
+    /** The master list of products by category. */
+    static final CachedDataset<Map<String, Map<String, Keyword>>> masterList = new CachedDataset<>("masterList", new Supplier<Map<String, Map<String, Keyword>>>() {
+        @Override
+        public Map<String, Map<String, Keyword>> get() {
+            LinkedHashMap<String, LinkedHashMap<String, Keyword>> list = DataAccess.getMasterList();
+            if (list == null) {
+                return null;
+            }
+            LinkedHashMap<String, Map<String, Keyword>> snapshot = new LinkedHashMap<>();
+            for (Map.Entry<String, LinkedHashMap<String, Keyword>> entry : list.entrySet()) {
+                snapshot.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(snapshot);
+        }
+    }, ".json");
+
+    /** The search-term datasets that have been requested, by file name. */
+    static final HashMap<String, CachedDataset<List<SearchTerm>>> searchTermLists = new HashMap<>();
+
+    /** The token index of the Amazon list and the search-term dataset it was last built for. */
+    static TokenIndex tokenIndex = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private DataRepository() {
+    }
+
+    /**
+     * Gets the Amazon product titles.
+     *
+     * @return a shallow, unmodifiable snapshot of the Amazon list, or {@code null} if the file cannot be read
+     */
+    public static Map<String, Keyword> getAmazonList() {
+        return DataRepository.amazonTitles.get();
+    }
+
+    /**
+     * Gets the master list of products by category.
+     *
+     * @return a shallow, unmodifiable snapshot of the master list, or {@code null} if the file cannot be read
+     */
+    public static Map<String, Map<String, Keyword>> getMasterList() {
+        return DataRepository.masterList.get();
+    }
+
+    /**
+     * Gets a search-term dataset.
+     *
+     * @param fileName the name of the dataset (without extension)
+     * @return a shallow, unmodifiable snapshot of the search terms, or {@code null} if the file cannot be read
+     */
+    public static List<SearchTerm> getSearchTermList(String fileName) {
+        CachedDataset<List<SearchTerm>> dataset;
+        synchronized (DataRepository.searchTermLists) {
+            dataset = DataRepository.searchTermLists.get(fileName);
+            if (dataset == null) {
+                dataset = new CachedDataset<>(fileName, new Supplier<List<SearchTerm>>() {
+                    @Override
+                    public List<SearchTerm> get() {
+                        ArrayList<SearchTerm> searchTerms = DataAccess.getSearchTermList(fileName);
+                        return searchTerms != null ? Collections.unmodifiableList(searchTerms) : null;
+                    }
+                }, ".json", DataAccess.SEARCH_TERM_EXTENSION);
+                DataRepository.searchTermLists.put(fileName, dataset);
+            }
+        }
+        return dataset.get();
+    }
+
+    /**
+     * Gets the index from tokens to the Amazon products and the search terms of a dataset that contain them.
+     * <p>
+     * The index is built again when either snapshot has been reloaded since it was last built.
+     * </p>
+     *
+     * @param fileName the name of the search-term dataset (without extension)
+     * @return the token index of the current snapshots
+     */
+    public static synchronized TokenIndex getTokenIndex(String fileName) {
+        Map<String, Keyword> amazonList = DataRepository.getAmazonList();
+        List<SearchTerm> searchTerms = DataRepository.getSearchTermList(fileName);
+        TokenIndex index = DataRepository.tokenIndex;
+        if (index == null || index.products != amazonList || index.searchTerms != searchTerms) {
+            index = new TokenIndex(amazonList, searchTerms);
+            DataRepository.tokenIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the number of requests answered from memory.
+     *
+     * @return the number of hits
+     */
+    public static int getHits() {
+        return DataRepository.hits.get();
+    }
+
+    /**
+     * Gets the number of requests that had to read a dataset from disk.
+     *
+     * @return the number of misses
+     */
+    public static int getMisses() {
+        return DataRepository.misses.get();
+    }
+
+    /**
+     * A dataset held in memory together with the file version and modification times it was read at.
+     *
+     * @param <T> the type of the snapshot
+     */
+    static class CachedDataset<T> {
+
+        /** The name of the file (without extension). */
+        final String fileName;
+
+        /** The extensions of the files the dataset can be read from. */
+        final String[] extensions;
+
+        /** Reads the dataset through {@link DataAccess}. */
+        final Supplier<T> loader;
+
+        /** Whether the dataset has been read. */
+        boolean loaded;
+
+        /** The snapshot, or null if the file could not be read. */
+        T snapshot;
+
+        /** The {@link DataAccess} version of the file when it was read. */
+        int version;
+
+        /** The modification time of each file when it was read, 0 for a missing file. */
+        long[] lastModified;
+
+        /**
+         * Constructs a CachedDataset that has not been read yet.
+         *
+         * @param fileName the name of the file (without extension)
+         * @param loader reads the dataset
+         * @param extensions the extensions of the files the dataset can be read from
+         */
+        CachedDataset(String fileName, Supplier<T> loader, String... extensions) {
+            this.fileName = fileName;
+            this.loader = loader;
+            this.extensions = extensions;
+            this.loaded = false;
+        }
+
+        /**
+         * Gets the snapshot, reading the dataset again if it has changed since it was last read.
+         *
+         * @return the snapshot
+         */
+        synchronized T get() {
+            // a pending write would change the modification time after it has been read
+            DataAccess.awaitWrite(this.fileName);
+            int currentVersion = DataAccess.getVersion(this.fileName);
+            long[] currentModified = getLastModified();
+            if (this.loaded && this.version == currentVersion && Arrays.equals(this.lastModified, currentModified)) {
+                DataRepository.hits.incrementAndGet();
+                return this.snapshot;
+            }
+
+            this.snapshot = this.loader.get();
+            this.version = currentVersion;
+            // read again, since importing a JSON dataset writes its binary file
+            this.lastModified = getLastModified();
+            this.loaded = true;
+            DataRepository.misses.incrementAndGet();
+            return this.snapshot;
+        }
+
+        /**
+         * Gets the current modification time of each file.
+         *
+         * @return the modification times, 0 for a missing file
+         */
+        long[] getLastModified() {
+            long[] modified = new long[this.extensions.length];
+            for (int i = 0; i < this.extensions.length; i++) {
+                modified[i] = new File(DataAccess.getPath(this.fileName) + this.extensions[i]).lastModified();
+            }
+            return modified;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package bss.Data;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.apache.commons.io.FilenameUtils;
@@ -46,37 +47,39 @@ public enum FileUpload {
                 return false;
             }
 
-            try {    
-                List<List<String>> records = readCsv(filePath);
-                System.out.println(records.get(0));
-                ArrayList<SearchTerm> searchTerms = new ArrayList<>();
-                List<String> colNames = records.get(0);
-                if (!checkColumnNames(colNames)) {
+            try (CSVReader csvReader = openCsv(filePath)) {
+                int[] col = resolveColumns(csvReader.readNext());
+                if (col == null) {
                     return false;
                 }
-                ArrayList<String> campaignNames = new ArrayList<>();
-                int i = 0;
-                for (List<String> record : records) {
-                    if (record == colNames) {
-                        continue;
-                    }
-                    if (!record.get(colNames.indexOf("campaign_name")).toLowerCase().contains("auto") && !record.get(colNames.indexOf("keyword_text")).equals("(_targeting_auto_)")) {
-                        searchTerms.add(new SearchTerm(record.get(colNames.indexOf("keyword_text")), record.get(colNames.indexOf("campaign_name")), record.get(colNames.indexOf("query")), record.get(colNames.indexOf("keyword_match_type")), record.get(colNames.indexOf("ad_group_name")), Integer.parseInt(record.get(colNames.indexOf("clicks__sum"))), Double.parseDouble(record.get(colNames.indexOf("cost__sum"))), Double.parseDouble(record.get(colNames.indexOf("attributed_sales_14_day__sum"))), Integer.parseInt(record.get(colNames.indexOf("attributed_conversions_14_day__sum"))), Integer.parseInt(record.get(colNames.indexOf("impressions__sum")))));
-                        System.out.println(record.get(colNames.indexOf("query")));
-                        if (record.get(colNames.indexOf("campaign_name")).charAt(0) != '_') {
-                            if (!campaignNames.contains(record.get(colNames.indexOf("campaign_name")))) {
-                                campaignNames.add(record.get(colNames.indexOf("campaign_name")));
-                            }
-                            i++;
+                int keywordText = col[0], campaignName = col[1];
+                int width = 1 + Arrays.stream(col).max().getAsInt();
+
+                LinkedHashSet<String> campaignNames = new LinkedHashSet<>();
+                int[] incomplete = {0};
+                UploadPipeline pipeline = new UploadPipeline(this.columns, col);
+                ArrayList<SearchTerm> searchTerms = pipeline.run(csvReader, new UploadPipeline.RowFilter() {
+                    @Override
+                    public boolean accept(String[] values) {
+                        if (values.length < width) {
+                            incomplete[0]++;
+                            return false;
+                        }
+                        if (values[campaignName].toLowerCase().contains("auto") || values[keywordText].equals("(_targeting_auto_)")) {
+                            return false;
                         }
+                        if (values[campaignName].charAt(0) != '_') {
+                            campaignNames.add(values[campaignName]);
+                        }
+                        return true;
                     }
-                }
+                });
 
-                DataAccess.writeToJson("testData", searchTerms);
+                DataAccess.writeSearchTerms("testData", searchTerms);
+                this.lastPipeline = pipeline;
                 System.out.println("search terms upload done");
                 System.out.println(campaignNames);
-                System.out.println(records.size());
-                System.out.println(i);
+                System.out.println(searchTerms.size() + " search terms, " + incomplete[0] + " incomplete rows skipped");
 
                 return true;
             } catch (IOException ex) {
@@ -87,6 +90,9 @@ public enum FileUpload {
                 // e.printStackTrace();
                 System.out.println("File upload CsvValidationException");
                 return false;
+            } catch (IllegalArgumentException e) {
+                System.out.println("File upload " + e.getMessage());
+                return false;
             }
         }
     }, 
@@ -114,6 +120,9 @@ public enum FileUpload {
     /** The expected column names for this file type. */
     public final String[] columns;
 
+    /** The pipeline of the last successful upload of this type, or null if there is none. */
+    UploadPipeline lastPipeline = null;
+
     /**
      * Constructs a FileUpload enum instance.
      * 
@@ -143,6 +152,15 @@ public enum FileUpload {
      */
     public abstract boolean read(File filePath);
 
+    /**
+     * Gets the pipeline of the last successful upload of this type, which describes its throughput.
+     * 
+     * @return the pipeline, or null if no file of this type has been uploaded
+     */
+    public UploadPipeline getLastPipeline() {
+        return this.lastPipeline;
+    }
+
     /**
      * Checks if the file type matches the expected type.
      * 
@@ -153,6 +171,18 @@ public enum FileUpload {
         return FilenameUtils.getExtension(filePath.getAbsolutePath()).equals(this.fileType);
     }
 
+    /**
+     * Opens a CSV file for reading one record at a time. The caller must close the reader.
+     * 
+     * @param filePath the file to read
+     * @return the reader
+     * @throws IOException if the file cannot be opened
+     */
+    public CSVReader openCsv(File filePath) throws IOException {
+        CSVParser parser = new CSVParserBuilder().withEscapeChar('\0').build();
+        return new CSVReaderBuilder(new BufferedReader(DataAccess.openReader(filePath.getAbsolutePath()))).withCSVParser(parser).build();
+    }
+
     /**
      * Reads the content of a CSV file and returns it as a list of lists of strings.
      * 
@@ -163,15 +193,32 @@ public enum FileUpload {
      */
     public List<List<String>> readCsv(File filePath) throws CsvValidationException, IOException {
         List<List<String>> records = new ArrayList<>();
-        CSVParser parser = new CSVParserBuilder().withEscapeChar('\0').build();
-        CSVReader csvReader = new CSVReaderBuilder(new FileReader(filePath.getAbsolutePath())).withCSVParser(parser).build();
-        String[] values;
-        while ((values = csvReader.readNext()) != null) {
-            records.add(Arrays.asList(values));
+        try (CSVReader csvReader = openCsv(filePath)) {
+            String[] values;
+            while ((values = csvReader.readNext()) != null) {
+                records.add(Arrays.asList(values));
+            }
         }
         return records;
     }
 
+    /**
+     * Finds the position of each expected column in a header row.
+     * 
+     * @param header the header row of the file, or null if the file is empty
+     * @return the ordinal of each of {@link #columns} in the header, or null if one is missing
+     */
+    public int[] resolveColumns(String[] header) {
+        if (header == null || !checkColumnNames(Arrays.asList(header))) {
+            return null;
+        }
+        int[] ordinals = new int[this.columns.length];
+        for (int i = 0; i < this.columns.length; i++) {
+            ordinals[i] = Arrays.asList(header).indexOf(this.columns[i]);
+        }
+        return ordinals;
+    }
+
     /**
      * Checks if the column names in the file match the expected columns.
      * 
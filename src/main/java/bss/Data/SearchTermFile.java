@@ -0,0 +1,729 @@
+package bss.Data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import bss.Keywords.Categories;
+import bss.Keywords.SearchTerm;
+
+/**
+ * A read-only list of search terms backed by a memory-mapped binary file.
+ * <p>
+ * The file stores the search terms by column: a string table of queries, a shared string table for tokens
+ * and campaign fields, a primitive array for each number, and token ids for the tokens, categorized tokens
+ * and term frequencies. Opening a file only maps it and reads its header. Each search term is decoded
+ * when it is first requested, and the orders and cvr columns can be filtered without decoding anything.
+ * </p>
+ * <p>
+ * All numbers are big-endian. The file starts with {@link #MAGIC}, {@link #FORMAT_VERSION}, the number of
+ * search terms, the length and modification time of the JSON file the search terms correspond to and the
+ * byte offset of each {@link Section}, followed by the sections themselves. Version 1 files, which have no
+ * JSON file stamp, can still be read.
+ * </p>
+ */
+public class SearchTermFile extends AbstractList<SearchTerm> {
+
+    /** Marks a search-term file ("KGST"). */
+    static final int MAGIC = 0x4B475354;
+
+    /** Version of the layout, increased whenever a section is added or changed. */
+    static final int FORMAT_VERSION = 2;
+
+    /** Id stored for a missing string. */
+    static final int NO_STRING = -1;
+
+    /** Length and modification time stored when there was no JSON file. */
+    static final long NO_SOURCE = -1;
+
+    /** Length and modification time of a version 1 file, which did not store them. */
+    static final long UNKNOWN_SOURCE = Long.MIN_VALUE;
+
+    /** Byte offset of the JSON file stamp in the header. */
+    static final int SOURCE_POSITION = 12;
+
+    /**
+     * Enum representing the sections of a search-term file, in the order they are written.
+     */
+    enum Section {
+        /** String table of the queries, one per search term. */
+        QUERIES,
+        /** String table shared by the tokens, category names and campaign fields. */
+        STRINGS,
+        /** Names of the categories stored for each search term, as string ids. */
+        CATEGORIES,
+        /** Clicks of each search term. */
+        CLICKS,
+        /** Cost of each search term. */
+        COST,
+        /** Sales of each search term. */
+        SALES,
+        /** Orders of each search term. */
+        ORDERS,
+        /** Impressions of each search term. */
+        IMPRESSIONS,
+        /** Conversion rate of each search term. */
+        CVR,
+        /** Keyword text of each search term, as a string id. */
+        KEYWORD,
+        /** Campaign name of each search term, as a string id. */
+        CAMPAIGN_NAME,
+        /** Keyword match type of each search term, as a string id. */
+        KEYWORD_MATCH_TYPE,
+        /** Ad group name of each search term, as a string id. */
+        AD_GROUP_NAME,
+        /** Start of the tokens of each search term in {@link #TOKENS}, plus the end of the last. */
+        TOKEN_OFFSETS,
+        /** Token ids of every search term. */
+        TOKENS,
+        /** Start of the tokens of each search term and category in {@link #CATEGORIZED_TOKENS}, plus the end of the last. */
+        CATEGORIZED_OFFSETS,
+        /** Token ids of every search term, by category. */
+        CATEGORIZED_TOKENS,
+        /** Start of the term frequencies of each search term in {@link #TF_TERMS}, plus the end of the last. */
+        TF_OFFSETS,
+        /** Token ids of the term frequencies of every search term. */
+        TF_TERMS,
+        /** Values of the term frequencies of every search term. */
+        TF_VALUES
+    }
+
+    /** Byte offset of the section offsets in the header of each version, indexed by version. */
+    static final int[] SECTION_TABLE_POSITIONS = {0, 12, 28};
+
+    /** Number of bytes before the first section in files of the current version. */
+    static final int HEADER_SIZE = SECTION_TABLE_POSITIONS[FORMAT_VERSION] + 4 * (Section.values().length + 1);
+
+    /** The mapped file. */
+    final ByteBuffer buffer;
+
+    /** Byte offset of the section offsets in the header. */
+    final int sectionTable;
+
+    /** Number of search terms in the file. */
+    final int size;
+
+    /** Length of the JSON file these search terms correspond to, {@link #NO_SOURCE} or {@link #UNKNOWN_SOURCE}. */
+    final long sourceLength;
+
+    /** Modification time of the JSON file these search terms correspond to, {@link #NO_SOURCE} or {@link #UNKNOWN_SOURCE}. */
+    final long sourceModified;
+
+    /** Queries of the search terms. */
+    final StringTable queries;
+
+    /** Tokens, category names and campaign fields. */
+    final StringTable strings;
+
+    /** Categories stored for each search term, in the order they were written. */
+    final Categories[] categories;
+
+    /** Numeric columns. */
+    final IntBuffer clicks, orders, impressions;
+
+    /** Numeric columns. */
+    final DoubleBuffer cost, sales, cvr;
+
+    /** Campaign fields, as string ids. */
+    final IntBuffer keyword, campaignName, keywordMatchType, adGroupName;
+
+    /** Token lists, as offsets into the token ids. */
+    final IntBuffer tokenOffsets, tokens, categorizedOffsets, categorizedTokens, tfOffsets, tfTerms;
+
+    /** Values of the term frequencies. */
+    final DoubleBuffer tfValues;
+
+    /**
+     * Reads the header of a mapped search-term file.
+     *
+     * @param buffer the mapped file
+     * @throws IOException if the file is not a search-term file of this version
+     */
+    SearchTermFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < 8 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a search term file");
+        }
+        int version = buffer.getInt(4);
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("unsupported search term file version " + version);
+        }
+        this.sectionTable = SECTION_TABLE_POSITIONS[version];
+        if (buffer.capacity() < this.sectionTable + 4 * (Section.values().length + 1)) {
+            throw new IOException("not a search term file");
+        }
+        this.size = buffer.getInt(8);
+        this.sourceLength = version >= 2 ? buffer.getLong(SOURCE_POSITION) : UNKNOWN_SOURCE;
+        this.sourceModified = version >= 2 ? buffer.getLong(SOURCE_POSITION + 8) : UNKNOWN_SOURCE;
+
+        this.queries = new StringTable(section(Section.QUERIES));
+        this.strings = new StringTable(section(Section.STRINGS));
+
+        IntBuffer categoryIds = section(Section.CATEGORIES).asIntBuffer();
+        this.categories = new Categories[categoryIds.capacity()];
+        for (int i = 0; i < this.categories.length; i++) {
+            try {
+                this.categories[i] = Categories.valueOf(this.strings.get(categoryIds.get(i)));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("unknown category " + this.strings.get(categoryIds.get(i)));
+            }
+        }
+
+        this.clicks = section(Section.CLICKS).asIntBuffer();
+        this.cost = section(Section.COST).asDoubleBuffer();
+        this.sales = section(Section.SALES).asDoubleBuffer();
+        this.orders = section(Section.ORDERS).asIntBuffer();
+        this.impressions = section(Section.IMPRESSIONS).asIntBuffer();
+        this.cvr = section(Section.CVR).asDoubleBuffer();
+        this.keyword = section(Section.KEYWORD).asIntBuffer();
+        this.campaignName = section(Section.CAMPAIGN_NAME).asIntBuffer();
+        this.keywordMatchType = section(Section.KEYWORD_MATCH_TYPE).asIntBuffer();
+        this.adGroupName = section(Section.AD_GROUP_NAME).asIntBuffer();
+        this.tokenOffsets = section(Section.TOKEN_OFFSETS).asIntBuffer();
+        this.tokens = section(Section.TOKENS).asIntBuffer();
+        this.categorizedOffsets = section(Section.CATEGORIZED_OFFSETS).asIntBuffer();
+        this.categorizedTokens = section(Section.CATEGORIZED_TOKENS).asIntBuffer();
+        this.tfOffsets = section(Section.TF_OFFSETS).asIntBuffer();
+        this.tfTerms = section(Section.TF_TERMS).asIntBuffer();
+        this.tfValues = section(Section.TF_VALUES).asDoubleBuffer();
+
+        if (this.queries.size() != this.size || this.orders.capacity() != this.size || this.cvr.capacity() != this.size
+                || this.tokenOffsets.capacity() != this.size + 1 || this.categorizedOffsets.capacity() != this.size * this.categories.length + 1) {
+            throw new IOException("inconsistent search term file");
+        }
+    }
+
+    /**
+     * Maps a search-term file into memory and reads its header.
+     *
+     * @param path the path to the file
+     * @return the search terms of the file
+     * @throws IOException if the file cannot be read or is not a search-term file of this version
+     */
+    public static SearchTermFile open(Path path) throws IOException {
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SearchTermFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Gets the bytes of a section.
+     *
+     * @param section the section
+     * @return a buffer over the section
+     * @throws IOException if the section lies outside the file
+     */
+    ByteBuffer section(Section section) throws IOException {
+        int start = this.buffer.getInt(this.sectionTable + 4 * section.ordinal());
+        int end = this.buffer.getInt(this.sectionTable + 4 * (section.ordinal() + 1));
+        if (start < this.sectionTable + 4 * (Section.values().length + 1) || end < start || end > this.buffer.capacity()) {
+            throw new IOException("inconsistent search term file");
+        }
+        ByteBuffer bytes = this.buffer.duplicate();
+        bytes.position(start);
+        bytes.limit(end);
+        return bytes.slice();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether the file was written from, or after, the current contents of a JSON file.
+     *
+     * @param length the current length of the JSON file, or {@link #NO_SOURCE} if there is none
+     * @param modified the current modification time of the JSON file, or {@link #NO_SOURCE} if there is none
+     * @return true if the stamp stored in the file matches, false if it differs or the file has no stamp
+     */
+    public boolean isCurrent(long length, long modified) {
+        return this.sourceModified != UNKNOWN_SOURCE && this.sourceLength == length && this.sourceModified == modified;
+    }
+
+    /**
+     * Checks whether the file stores the stamp of a JSON file, which version 1 files do not.
+     *
+     * @return true if {@link #isCurrent(long, long)} can be used
+     */
+    public boolean hasSource() {
+        return this.sourceModified != UNKNOWN_SOURCE;
+    }
+
+    /**
+     * Gets the query of a search term without decoding the rest of it.
+     *
+     * @param i the index of the search term
+     * @return the query
+     */
+    public String getQuery(int i) {
+        return this.queries.get(i);
+    }
+
+    /**
+     * Gets the orders of a search term without decoding it.
+     *
+     * @param i the index of the search term
+     * @return the number of orders
+     */
+    public int getOrders(int i) {
+        return this.orders.get(i);
+    }
+
+    /**
+     * Gets the conversion rate of a search term without decoding it.
+     *
+     * @param i the index of the search term
+     * @return the conversion rate
+     */
+    public double getCVR(int i) {
+        return this.cvr.get(i);
+    }
+
+    /**
+     * Decodes a search term. Each call returns a new SearchTerm.
+     *
+     * @param i the index of the search term
+     * @return the search term
+     */
+    @Override
+    public SearchTerm get(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+        }
+
+        ArrayList<String> tokenList = new ArrayList<>();
+        for (int j = this.tokenOffsets.get(i); j < this.tokenOffsets.get(i + 1); j++) {
+            tokenList.add(this.strings.get(this.tokens.get(j)));
+        }
+
+        LinkedHashMap<Categories, List<String>> categorized = new LinkedHashMap<>();
+        for (int c = 0; c < this.categories.length; c++) {
+            int k = i * this.categories.length + c;
+            ArrayList<String> categoryTokens = new ArrayList<>();
+            for (int j = this.categorizedOffsets.get(k); j < this.categorizedOffsets.get(k + 1); j++) {
+                categoryTokens.add(this.strings.get(this.categorizedTokens.get(j)));
+            }
+            categorized.put(this.categories[c], categoryTokens);
+        }
+
+        HashMap<String, Double> tf = new HashMap<>();
+        for (int j = this.tfOffsets.get(i); j < this.tfOffsets.get(i + 1); j++) {
+            tf.put(this.strings.get(this.tfTerms.get(j)), this.tfValues.get(j));
+        }
+
+        return new SearchTerm(this.queries.get(i), tokenList, categorized, tf,
+                this.strings.get(this.keyword.get(i)), this.strings.get(this.campaignName.get(i)), this.strings.get(this.keywordMatchType.get(i)), this.strings.get(this.adGroupName.get(i)),
+                this.clicks.get(i), this.cost.get(i), this.sales.get(i), this.orders.get(i), this.impressions.get(i), this.cvr.get(i));
+    }
+
+    /**
+     * Streams the search terms, decoding each one as the stream reaches it.
+     *
+     * @return a sequential stream of the search terms, in file order
+     */
+    public Stream<SearchTerm> stream() {
+        return IntStream.range(0, this.size).mapToObj(new IntFunction<SearchTerm>() {
+            @Override
+            public SearchTerm apply(int i) {
+                return get(i);
+            }
+        });
+    }
+
+    /**
+     * Writes search terms to a file in this format, replacing the file if it exists.
+     * <p>
+     * The string tables are built in a first pass over the search terms. Each section is then streamed
+     * into the file in a pass of its own, so apart from the string tables nothing is held in memory. The
+     * list should therefore be cheap to iterate, such as an {@link ArrayList}.
+     * </p>
+     *
+     * @param path the path to the file
+     * @param searchTerms the search terms to write
+     * @param sourceLength the length of the JSON file the search terms correspond to, or {@link #NO_SOURCE}
+     * @param sourceModified the modification time of the JSON file, or {@link #NO_SOURCE}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, List<? extends SearchTerm> searchTerms, long sourceLength, long sourceModified) throws IOException {
+        Categories[] categories = Categories.values();
+        StringTableBuilder queries = new StringTableBuilder();
+        StringTableBuilder strings = new StringTableBuilder();
+        for (Categories category : categories) {
+            strings.add(category.name());
+        }
+        for (SearchTerm searchTerm : searchTerms) {
+            queries.append(searchTerm.getKeyword() != null ? searchTerm.getKeyword() : "");
+            strings.add(searchTerm.getKeywordText());
+            strings.add(searchTerm.getCampaignName());
+            strings.add(searchTerm.getKeywordMatchType());
+            strings.add(searchTerm.getAdGroupName());
+            strings.addAll(searchTerm.getTokens());
+            Map<Categories, List<String>> categorized = searchTerm.getCategorizedTokens();
+            for (Categories category : categories) {
+                strings.addAll(categorized != null ? categorized.get(category) : null);
+            }
+            if (searchTerm.getTF() != null) {
+                strings.addAll(searchTerm.getTF().keySet());
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // the sections go after the header, which is written once their offsets are known
+            channel.position(HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(FORMAT_VERSION);
+            header.putInt(searchTerms.size());
+            header.putLong(sourceLength);
+            header.putLong(sourceModified);
+            for (Section section : Section.values()) {
+                header.putInt(HEADER_SIZE + out.size());
+                SearchTermFile.writeSection(out, section, searchTerms, categories, queries, strings);
+            }
+            header.putInt(HEADER_SIZE + out.size());
+            out.flush();
+
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+    }
+
+    /**
+     * Writes one section of a search-term file.
+     *
+     * @param out the stream to write to
+     * @param section the section to write
+     * @param searchTerms the search terms
+     * @param categories the categories stored for each search term
+     * @param queries the string table of the queries
+     * @param strings the string table of everything else, which already contains every string
+     * @throws IOException if the section cannot be written
+     */
+    static void writeSection(DataOutputStream out, Section section, List<? extends SearchTerm> searchTerms, Categories[] categories, StringTableBuilder queries, StringTableBuilder strings) throws IOException {
+        int count = 0;
+        switch (section) {
+            case QUERIES:
+                queries.writeTo(out);
+                break;
+            case STRINGS:
+                strings.writeTo(out);
+                break;
+            case CATEGORIES:
+                for (Categories category : categories) {
+                    out.writeInt(strings.add(category.name()));
+                }
+                break;
+            case CLICKS:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(searchTerm.getClicks());
+                }
+                break;
+            case COST:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeDouble(searchTerm.getCost());
+                }
+                break;
+            case SALES:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeDouble(searchTerm.getSales());
+                }
+                break;
+            case ORDERS:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(searchTerm.getOrders());
+                }
+                break;
+            case IMPRESSIONS:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(searchTerm.getImpressions());
+                }
+                break;
+            case CVR:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeDouble(searchTerm.getCVR());
+                }
+                break;
+            case KEYWORD:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(strings.add(searchTerm.getKeywordText()));
+                }
+                break;
+            case CAMPAIGN_NAME:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(strings.add(searchTerm.getCampaignName()));
+                }
+                break;
+            case KEYWORD_MATCH_TYPE:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(strings.add(searchTerm.getKeywordMatchType()));
+                }
+                break;
+            case AD_GROUP_NAME:
+                for (SearchTerm searchTerm : searchTerms) {
+                    out.writeInt(strings.add(searchTerm.getAdGroupName()));
+                }
+                break;
+            case TOKEN_OFFSETS:
+                out.writeInt(0);
+                for (SearchTerm searchTerm : searchTerms) {
+                    count += searchTerm.getTokens() != null ? searchTerm.getTokens().size() : 0;
+                    out.writeInt(count);
+                }
+                break;
+            case TOKENS:
+                for (SearchTerm searchTerm : searchTerms) {
+                    if (searchTerm.getTokens() != null) {
+                        for (String token : searchTerm.getTokens()) {
+                            out.writeInt(strings.add(token));
+                        }
+                    }
+                }
+                break;
+            case CATEGORIZED_OFFSETS:
+                out.writeInt(0);
+                for (SearchTerm searchTerm : searchTerms) {
+                    Map<Categories, List<String>> categorized = searchTerm.getCategorizedTokens();
+                    for (Categories category : categories) {
+                        List<String> categoryTokens = categorized != null ? categorized.get(category) : null;
+                        count += categoryTokens != null ? categoryTokens.size() : 0;
+                        out.writeInt(count);
+                    }
+                }
+                break;
+            case CATEGORIZED_TOKENS:
+                for (SearchTerm searchTerm : searchTerms) {
+                    Map<Categories, List<String>> categorized = searchTerm.getCategorizedTokens();
+                    for (Categories category : categories) {
+                        List<String> categoryTokens = categorized != null ? categorized.get(category) : null;
+                        if (categoryTokens != null) {
+                            for (String token : categoryTokens) {
+                                out.writeInt(strings.add(token));
+                            }
+                        }
+                    }
+                }
+                break;
+            case TF_OFFSETS:
+                out.writeInt(0);
+                for (SearchTerm searchTerm : searchTerms) {
+                    count += searchTerm.getTF() != null ? searchTerm.getTF().size() : 0;
+                    out.writeInt(count);
+                }
+                break;
+            case TF_TERMS:
+                for (SearchTerm searchTerm : searchTerms) {
+                    if (searchTerm.getTF() != null) {
+                        for (String term : searchTerm.getTF().keySet()) {
+                            out.writeInt(strings.add(term));
+                        }
+                    }
+                }
+                break;
+            case TF_VALUES:
+                for (SearchTerm searchTerm : searchTerms) {
+                    if (searchTerm.getTF() != null) {
+                        for (double value : searchTerm.getTF().values()) {
+                            out.writeDouble(value);
+                        }
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Replaces the JSON file stamp of a search-term file, after the JSON file has been written from it.
+     *
+     * @param path the path to the file
+     * @param sourceLength the length of the JSON file
+     * @param sourceModified the modification time of the JSON file
+     * @throws IOException if the file cannot be written or is not a search-term file of this version
+     */
+    public static void setSource(Path path, long sourceLength, long sourceModified) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(SOURCE_POSITION + 16);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("not a search term file");
+                }
+            }
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("not a search term file of version " + FORMAT_VERSION);
+            }
+            header.putLong(SOURCE_POSITION, sourceLength);
+            header.putLong(SOURCE_POSITION + 8, sourceModified);
+            header.position(SOURCE_POSITION);
+            long position = SOURCE_POSITION;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+    }
+
+    /**
+     * A table of strings stored as the end offset of each string followed by their UTF-8 bytes.
+     * Strings are decoded the first time they are requested.
+     */
+    static class StringTable {
+
+        /** End offset of each string in {@link #bytes}. */
+        final IntBuffer ends;
+
+        /** UTF-8 bytes of every string. */
+        final ByteBuffer bytes;
+
+        /** Strings decoded so far. Racing threads at worst decode a string twice. */
+        final String[] decoded;
+
+        /**
+         * Reads a string table.
+         *
+         * @param section the bytes of the table
+         * @throws IOException if the table is inconsistent
+         */
+        StringTable(ByteBuffer section) throws IOException {
+            if (section.capacity() < 4) {
+                throw new IOException("inconsistent search term file");
+            }
+            int count = section.getInt(0);
+            if (count < 0 || 4 + 4 * (long) count > section.capacity()) {
+                throw new IOException("inconsistent search term file");
+            }
+            section.position(4);
+            section.limit(4 + 4 * count);
+            this.ends = section.slice().asIntBuffer();
+            section.limit(section.capacity());
+            section.position(4 + 4 * count);
+            this.bytes = section.slice();
+            this.decoded = new String[count];
+        }
+
+        /**
+         * Gets the number of strings in the table.
+         *
+         * @return the number of strings
+         */
+        int size() {
+            return this.decoded.length;
+        }
+
+        /**
+         * Gets a string.
+         *
+         * @param id the id of the string, or {@link SearchTermFile#NO_STRING}
+         * @return the string, or null for {@link SearchTermFile#NO_STRING}
+         */
+        String get(int id) {
+            if (id == NO_STRING) {
+                return null;
+            }
+            String s = this.decoded[id];
+            if (s == null) {
+                int start = id == 0 ? 0 : this.ends.get(id - 1);
+                byte[] utf8 = new byte[this.ends.get(id) - start];
+                ByteBuffer bytes = this.bytes.duplicate();
+                bytes.position(start);
+                bytes.get(utf8);
+                s = new String(utf8, StandardCharsets.UTF_8);
+                this.decoded[id] = s;
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Builds a {@link StringTable}.
+     */
+    static class StringTableBuilder {
+
+        /** Strings of the table, in id order. */
+        final ArrayList<String> strings = new ArrayList<>();
+
+        /** Id of each string added through {@link #add(String)}. */
+        final HashMap<String, Integer> ids = new HashMap<>();
+
+        /**
+         * Adds a string if it has not been added yet, so that each distinct string has one id.
+         *
+         * @param s the string, or null
+         * @return the id of the string, or {@link SearchTermFile#NO_STRING} for null
+         */
+        int add(String s) {
+            if (s == null) {
+                return NO_STRING;
+            }
+            Integer id = this.ids.get(s);
+            if (id == null) {
+                id = append(s);
+                this.ids.put(s, id);
+            }
+            return id;
+        }
+
+        /**
+         * Adds each string of a collection with {@link #add(String)}.
+         *
+         * @param collection the strings, or null for none
+         */
+        void addAll(Iterable<String> collection) {
+            if (collection != null) {
+                for (String s : collection) {
+                    add(s);
+                }
+            }
+        }
+
+        /**
+         * Adds a string as a new entry, even if it has been added before.
+         *
+         * @param s the string
+         * @return the id of the string
+         */
+        int append(String s) {
+            this.strings.add(s);
+            return this.strings.size() - 1;
+        }
+
+        /**
+         * Writes the table.
+         *
+         * @param out the stream to write to
+         * @throws IOException if the table cannot be written
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(this.strings.size());
+            int end = 0;
+            for (String s : this.strings) {
+                end += s.getBytes(StandardCharsets.UTF_8).length;
+                out.writeInt(end);
+            }
+            for (String s : this.strings) {
+                out.write(s.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
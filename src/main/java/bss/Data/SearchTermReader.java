@@ -0,0 +1,87 @@
+package bss.Data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import bss.Keywords.SearchTerm;
+
+/**
+ * Reads the search terms of a JSON array one at a time.
+ * <p>
+ * Only one record is held in memory at a time, so a dataset can be consumed while it is being read
+ * instead of after the whole array has been turned into a list.
+ * </p>
+ */
+public class SearchTermReader implements Iterator<SearchTerm>, Closeable {
+
+    /** Gson instance used to turn each record into a SearchTerm. */
+    static final Gson gson = new Gson();
+
+    /** The reader over the JSON array. */
+    final JsonReader in;
+
+    /**
+     * Constructs a SearchTermReader.
+     *
+     * @param in the reader over a JSON array of search terms
+     */
+    public SearchTermReader(Reader in) {
+        this.in = new JsonReader(in);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (this.in.peek() == JsonToken.BEGIN_ARRAY) {
+                this.in.beginArray();
+            }
+            return this.in.hasNext();
+        } catch (IOException ex) {
+            throw new JsonIOException(ex);
+        }
+    }
+
+    @Override
+    public SearchTerm next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return SearchTermReader.gson.fromJson(this.in, SearchTerm.class);
+    }
+
+    /**
+     * Returns the remaining search terms as a sequential stream that closes this reader when it is closed.
+     *
+     * @return a stream of the remaining search terms
+     */
+    public Stream<SearchTerm> stream() {
+        Stream<SearchTerm> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        return stream.onClose(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    close();
+                } catch (IOException ex) {
+                    System.out.println("can't close search term reader");
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
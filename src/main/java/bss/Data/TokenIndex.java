@@ -0,0 +1,252 @@
+package bss.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import bss.Keywords.Keyword;
+import bss.Keywords.SearchTerm;
+
+/**
+ * An in-memory index from tokens to the products and search terms that contain them.
+ * <p>
+ * The distinct tokens are kept in a sorted array, so a token is found by binary search and all tokens with
+ * a given prefix form one contiguous range of the array. Each token has a posting list of the products and
+ * one of the search terms containing it, in dataset order. The index is built from a snapshot of
+ * {@link DataRepository} and is not updated; {@link DataRepository#getTokenIndex(String)} builds a new one
+ * when the snapshots change.
+ * </p>
+ */
+public class TokenIndex {
+
+    /** The product titles the index was built from. */
+    final Map<String, Keyword> products;
+
+    /** The search terms the index was built from. */
+    final List<SearchTerm> searchTerms;
+
+    /** The ids of the products, indexed by product number. */
+    final String[] productIds;
+
+    /** The distinct tokens of the products and search terms, in sorted order. */
+    final String[] tokens;
+
+    /** The numbers of the products containing each token, parallel to {@code tokens}. */
+    final int[][] productPostings;
+
+    /** The positions of the search terms containing each token, parallel to {@code tokens}. */
+    final int[][] searchTermPostings;
+
+    /**
+     * Builds the index of a set of products and search terms.
+     *
+     * @param products the product titles by product id, or null if there are none
+     * @param searchTerms the search terms, or null if there are none
+     */
+    public TokenIndex(Map<String, Keyword> products, List<SearchTerm> searchTerms) {
+        this.products = products;
+        this.searchTerms = searchTerms;
+
+        HashMap<String, ArrayList<Integer>> productIndex = new HashMap<>();
+        ArrayList<String> ids = new ArrayList<>();
+        if (products != null) {
+            for (Map.Entry<String, Keyword> entry : products.entrySet()) {
+                TokenIndex.addPostings(productIndex, ids.size(), entry.getValue().getTokens());
+                ids.add(entry.getKey());
+            }
+        }
+        this.productIds = ids.toArray(new String[ids.size()]);
+
+        HashMap<String, ArrayList<Integer>> searchTermIndex = new HashMap<>();
+        if (searchTerms != null) {
+            for (int i = 0; i < searchTerms.size(); i++) {
+                TokenIndex.addPostings(searchTermIndex, i, searchTerms.get(i).getTokens());
+            }
+        }
+
+        HashSet<String> distinct = new HashSet<>(productIndex.keySet());
+        distinct.addAll(searchTermIndex.keySet());
+        this.tokens = distinct.toArray(new String[distinct.size()]);
+        Arrays.sort(this.tokens);
+
+        this.productPostings = new int[this.tokens.length][];
+        this.searchTermPostings = new int[this.tokens.length][];
+        for (int t = 0; t < this.tokens.length; t++) {
+            this.productPostings[t] = TokenIndex.toArray(productIndex.get(this.tokens[t]));
+            this.searchTermPostings[t] = TokenIndex.toArray(searchTermIndex.get(this.tokens[t]));
+        }
+    }
+
+    /**
+     * Adds a document to the posting lists of its tokens, once per token.
+     *
+     * @param index the posting lists by token
+     * @param doc the number of the document
+     * @param tokens the tokens of the document
+     */
+    static void addPostings(HashMap<String, ArrayList<Integer>> index, int doc, List<String> tokens) {
+        for (String token : tokens) {
+            ArrayList<Integer> posting = index.get(token);
+            if (posting == null) {
+                posting = new ArrayList<>();
+                index.put(token, posting);
+            }
+            if (posting.isEmpty() || posting.get(posting.size() - 1) != doc) {
+                posting.add(doc);
+            }
+        }
+    }
+
+    /**
+     * Converts a posting list to an array.
+     *
+     * @param posting the posting list, or null for an empty one
+     * @return the document numbers
+     */
+    static int[] toArray(ArrayList<Integer> posting) {
+        if (posting == null) {
+            return new int[0];
+        }
+        int[] docs = new int[posting.size()];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = posting.get(i);
+        }
+        return docs;
+    }
+
+    /**
+     * Gets the number of distinct tokens in the index.
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return this.tokens.length;
+    }
+
+    /**
+     * Gets the tokens that start with a prefix, for autocompletion.
+     *
+     * @param prefix the prefix
+     * @param limit the maximum number of tokens to return
+     * @return at most {@code limit} tokens starting with the prefix, in sorted order
+     */
+    public List<String> complete(String prefix, int limit) {
+        int from = lowerBound(prefix);
+        int to = Math.min(prefixEnd(prefix, from), from + Math.max(limit, 0));
+        return Arrays.asList(Arrays.copyOfRange(this.tokens, from, to));
+    }
+
+    /**
+     * Finds the products that contain a token, or a token starting with a prefix.
+     *
+     * @param s the token or prefix
+     * @param prefix whether {@code s} is a prefix
+     * @return the ids of the products, in dataset order
+     */
+    public List<String> findProducts(String s, boolean prefix) {
+        ArrayList<String> found = new ArrayList<>();
+        for (int doc : find(this.productPostings, s, prefix)) {
+            found.add(this.productIds[doc]);
+        }
+        return found;
+    }
+
+    /**
+     * Gets the title of a product in the index.
+     *
+     * @param productID the id of the product
+     * @return the product title
+     */
+    public Keyword getProduct(String productID) {
+        return this.products.get(productID);
+    }
+
+    /**
+     * Finds the search terms that contain a token, or a token starting with a prefix.
+     *
+     * @param s the token or prefix
+     * @param prefix whether {@code s} is a prefix
+     * @return the search terms, in dataset order
+     */
+    public List<SearchTerm> findSearchTerms(String s, boolean prefix) {
+        ArrayList<SearchTerm> found = new ArrayList<>();
+        for (int doc : find(this.searchTermPostings, s, prefix)) {
+            found.add(this.searchTerms.get(doc));
+        }
+        return found;
+    }
+
+    /**
+     * Finds the documents that contain a token, or a token starting with a prefix.
+     *
+     * @param postings the posting lists to search
+     * @param s the token or prefix
+     * @param prefix whether {@code s} is a prefix
+     * @return the document numbers, in ascending order
+     */
+    int[] find(int[][] postings, String s, boolean prefix) {
+        int from = lowerBound(s);
+        if (!prefix) {
+            return from < this.tokens.length && this.tokens[from].equals(s) ? postings[from] : new int[0];
+        }
+        int to = prefixEnd(s, from);
+        if (to - from == 1) {
+            return postings[from];
+        }
+        // a document can contain several tokens with the prefix
+        BitSet docs = new BitSet();
+        for (int t = from; t < to; t++) {
+            for (int doc : postings[t]) {
+                docs.set(doc);
+            }
+        }
+        return docs.stream().toArray();
+    }
+
+    /**
+     * Finds the position of the first token that is not less than a string.
+     *
+     * @param s the string
+     * @return the position in {@code tokens}
+     */
+    int lowerBound(String s) {
+        int low = 0;
+        int high = this.tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.tokens[mid].compareTo(s) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the end of the range of tokens that start with a prefix.
+     *
+     * @param prefix the prefix
+     * @param from the position of the first token not less than the prefix
+     * @return the position after the last token starting with the prefix
+     */
+    int prefixEnd(String prefix, int from) {
+        int low = from;
+        int high = this.tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.tokens[mid].startsWith(prefix)) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,475 @@
+package bss.Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import bss.Keywords.AnnotationCache;
+import bss.Keywords.AnnotationProfile;
+import bss.Keywords.BatchTokenizer;
+import bss.Keywords.SearchTerm;
+import bss.Keywords.TokenList;
+import bss.Keywords.Tokenizer;
+
+/**
+ * Uploads a search-term report as a pipeline of stages connected by bounded queues, so that reading the
+ * file, CoreNLP annotation and dictionary processing run at the same time.
+ * <p>
+ * The calling thread parses and filters the rows. {@link BatchTokenizer#getThreads()} workers annotate the
+ * queries with the bulk profile, one thread replaces synonyms and categorizes the tokens, and one collector
+ * puts the search terms back in file order. When a queue is full the stage before it waits, so at most a
+ * few rows per worker are in flight.
+ * </p>
+ * <p>
+ * The pipeline does not write anything itself. The collected search terms are returned and written with
+ * {@link DataAccess#writeSearchTerms(String, java.util.List)}, because the binary file needs the string
+ * tables of the whole report before its first column. Memory therefore grows with the size of the report:
+ * every search term of the upload is held until the pipeline finishes.
+ * </p>
+ */
+public class UploadPipeline {
+
+    /**
+     * Enum representing the stages of the pipeline, in order.
+     */
+    public enum Stage {
+        /** Reads and filters the rows of the report. */
+        PARSE,
+        /** Annotates the queries with CoreNLP. */
+        TOKENIZE,
+        /** Replaces synonyms, removes extraneous tokens and categorizes the rest. */
+        CATEGORIZE,
+        /** Puts the search terms back in file order and collects them in memory. */
+        COLLECT
+    }
+
+    /** Number of rows that may wait in each queue for each tokenizer thread. */
+    static final int QUEUE_PER_THREAD = 16;
+
+    /** How long a stage waits on a queue before checking whether another stage has failed. */
+    static final long POLL_MILLIS = 100;
+
+    /** Marks the end of the rows in a queue. */
+    static final Row END = new Row(-1, -1, null);
+
+    /** The ordinals of the upload type's columns in the report. */
+    final int[] col;
+
+    /** The position of each of the upload type's columns in {@link Row#fields}, by column name. */
+    final HashMap<String, Integer> fieldIndex;
+
+    /** Number of threads annotating queries. */
+    final int threads;
+
+    /** Rows waiting to be annotated. */
+    final BlockingQueue<Row> parsed;
+
+    /** Rows waiting to be categorized. */
+    final BlockingQueue<Row> tokenized;
+
+    /** Rows waiting to be put back in order. */
+    final BlockingQueue<Row> categorized;
+
+    /** Number of rows each stage has finished. */
+    final EnumMap<Stage, AtomicLong> counts;
+
+    /** Time each stage has spent working rather than waiting on a queue, in nanoseconds. */
+    final EnumMap<Stage, AtomicLong> busyNanos;
+
+    /** The first exception thrown by a stage. */
+    final AtomicReference<RuntimeException> failure;
+
+    /** The search terms in file order, filled in by the collector. */
+    final ArrayList<SearchTerm> searchTerms;
+
+    /**
+     * Constructs an UploadPipeline for a search-term report.
+     *
+     * @param columns the names of the upload type's columns, which must include those of
+     *        {@link FileUpload#KEYWORD_SEARCH_TERM}
+     * @param col the ordinals of those columns in the report, as resolved from its header
+     */
+    public UploadPipeline(String[] columns, int[] col) {
+        this.col = col;
+        this.fieldIndex = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            this.fieldIndex.put(columns[i], i);
+        }
+        this.threads = BatchTokenizer.getThreads();
+        this.parsed = new ArrayBlockingQueue<>(this.threads * QUEUE_PER_THREAD);
+        this.tokenized = new ArrayBlockingQueue<>(this.threads * QUEUE_PER_THREAD);
+        this.categorized = new ArrayBlockingQueue<>(this.threads * QUEUE_PER_THREAD);
+        this.counts = new EnumMap<>(Stage.class);
+        this.busyNanos = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            this.counts.put(stage, new AtomicLong());
+            this.busyNanos.put(stage, new AtomicLong());
+        }
+        this.failure = new AtomicReference<>();
+        this.searchTerms = new ArrayList<>();
+    }
+
+    /**
+     * Runs the pipeline over the remaining rows of a report whose header has been read.
+     *
+     * @param csvReader the reader over the report
+     * @param filter decides which rows are uploaded
+     * @return the search terms, in file order
+     * @throws IOException if the report cannot be read
+     * @throws CsvValidationException if a row is not valid CSV
+     * @throws IllegalArgumentException if a row has a value that is not a number where one is expected
+     * @throws RuntimeException the first exception thrown by a stage
+     */
+    public ArrayList<SearchTerm> run(CSVReader csvReader, RowFilter filter) throws IOException, CsvValidationException {
+        ArrayList<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < this.threads; i++) {
+            workers.add(startThread("upload tokenizer " + i, new Runnable() {
+                @Override
+                public void run() {
+                    runTokenizer();
+                }
+            }));
+        }
+        workers.add(startThread("upload categorizer", new Runnable() {
+            @Override
+            public void run() {
+                runCategorizer();
+            }
+        }));
+        workers.add(startThread("upload collector", new Runnable() {
+            @Override
+            public void run() {
+                runCollector();
+            }
+        }));
+
+        Exception readFailure = null;
+        try {
+            int seq = 0;
+            long start = System.nanoTime();
+            String[] values;
+            while (this.failure.get() == null && (values = csvReader.readNext()) != null) {
+                if (filter.accept(values)) {
+                    String[] fields = new String[this.col.length];
+                    for (int i = 0; i < this.col.length; i++) {
+                        fields[i] = values[this.col[i]];
+                    }
+                    finish(Stage.PARSE, start);
+                    put(this.parsed, new Row(seq++, csvReader.getLinesRead(), fields));
+                    start = System.nanoTime();
+                }
+            }
+            for (int i = 0; i < this.threads; i++) {
+                put(this.parsed, END);
+            }
+        } catch (IOException | CsvValidationException ex) {
+            // stop the other stages, which would otherwise wait for more rows
+            readFailure = ex;
+            this.failure.compareAndSet(null, new IllegalStateException("upload stopped", ex));
+        } catch (RuntimeException ex) {
+            this.failure.compareAndSet(null, ex);
+        } finally {
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException ex) {
+                    this.failure.compareAndSet(null, new IllegalStateException("upload interrupted"));
+                    Thread.currentThread().interrupt();
+                }
+            }
+            AnnotationCache.flushAll();
+        }
+
+        if (readFailure instanceof IOException) {
+            throw (IOException) readFailure;
+        }
+        if (readFailure instanceof CsvValidationException) {
+            throw (CsvValidationException) readFailure;
+        }
+        if (this.failure.get() != null) {
+            throw this.failure.get();
+        }
+        return this.searchTerms;
+    }
+
+    /**
+     * Annotates queries until the end of the rows. Runs on each tokenizer thread.
+     */
+    void runTokenizer() {
+        AnnotationProfile previous = Tokenizer.useProfile(Tokenizer.getBulkProfile());
+        try {
+            Row row;
+            while ((row = take(this.parsed)) != END && row != null) {
+                long start = System.nanoTime();
+                // lower-cased as Keyword does
+                row.tokens = TokenList.extract(Tokenizer.annotate(field(row, "query").toLowerCase()));
+                finish(Stage.TOKENIZE, start);
+                put(this.tokenized, row);
+            }
+            put(this.tokenized, END);
+        } finally {
+            Tokenizer.useProfile(previous);
+        }
+    }
+
+    /**
+     * Builds and categorizes search terms until every tokenizer has finished.
+     */
+    void runCategorizer() {
+        int ended = 0;
+        while (ended < this.threads) {
+            Row row = take(this.tokenized);
+            if (row == null) {
+                return;
+            }
+            if (row == END) {
+                ended++;
+                continue;
+            }
+            long start = System.nanoTime();
+            int clicks = parseInt(row, "clicks__sum");
+            int orders = parseInt(row, "attributed_conversions_14_day__sum");
+            SearchTerm searchTerm = new SearchTerm(field(row, "query").toLowerCase(), new ArrayList<String>(), new LinkedHashMap<>(), new HashMap<String, Double>(),
+                    field(row, "keyword_text"), field(row, "campaign_name"), field(row, "keyword_match_type"), field(row, "ad_group_name"),
+                    clicks, parseDouble(row, "cost__sum"), parseDouble(row, "attributed_sales_14_day__sum"), orders, parseInt(row, "impressions__sum"), (double) orders / clicks);
+            searchTerm.tokenize(row.tokens);
+            searchTerm.computeTF();
+            row.searchTerm = searchTerm;
+            row.tokens = null;
+            finish(Stage.CATEGORIZE, start);
+            put(this.categorized, row);
+        }
+        put(this.categorized, END);
+    }
+
+    /**
+     * Adds the search terms to {@link #searchTerms} in file order until the end of the rows.
+     */
+    void runCollector() {
+        HashMap<Integer, SearchTerm> early = new HashMap<>();
+        Row row;
+        while ((row = take(this.categorized)) != END && row != null) {
+            long start = System.nanoTime();
+            early.put(row.seq, row.searchTerm);
+            SearchTerm next;
+            while ((next = early.remove(this.searchTerms.size())) != null) {
+                this.searchTerms.add(next);
+                finish(Stage.COLLECT, start);
+                start = System.nanoTime();
+            }
+            this.busyNanos.get(Stage.COLLECT).addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the value of a column in a row.
+     *
+     * @param row the row
+     * @param column the name of the column
+     * @return the value
+     */
+    String field(Row row, String column) {
+        return row.fields[this.fieldIndex.get(column)];
+    }
+
+    /**
+     * Parses the whole number in a column of a row.
+     *
+     * @param row the row
+     * @param column the name of the column
+     * @return the number
+     * @throws IllegalArgumentException if the value is not a whole number
+     */
+    int parseInt(Row row, String column) {
+        try {
+            return Integer.parseInt(field(row, column));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("line " + row.line + ": " + column + " is not a whole number: " + field(row, column));
+        }
+    }
+
+    /**
+     * Parses the number in a column of a row.
+     *
+     * @param row the row
+     * @param column the name of the column
+     * @return the number
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    double parseDouble(Row row, String column) {
+        try {
+            return Double.parseDouble(field(row, column));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("line " + row.line + ": " + column + " is not a number: " + field(row, column));
+        }
+    }
+
+    /**
+     * Starts a pipeline thread that records the first exception it throws.
+     *
+     * @param name the name of the thread
+     * @param stage the work of the thread
+     * @return the started thread
+     */
+    Thread startThread(String name, Runnable stage) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    stage.run();
+                } catch (RuntimeException ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Adds a row to a queue, waiting while it is full.
+     *
+     * @param queue the queue
+     * @param row the row
+     */
+    void put(BlockingQueue<Row> queue, Row row) {
+        try {
+            while (this.failure.get() == null) {
+                if (queue.offer(row, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            this.failure.compareAndSet(null, new IllegalStateException("upload interrupted"));
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes a row from a queue, waiting while it is empty.
+     *
+     * @param queue the queue
+     * @return the row, or null if another stage has failed
+     */
+    Row take(BlockingQueue<Row> queue) {
+        try {
+            while (this.failure.get() == null) {
+                Row row = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (row != null) {
+                    return row;
+                }
+            }
+        } catch (InterruptedException ex) {
+            this.failure.compareAndSet(null, new IllegalStateException("upload interrupted"));
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Records that a stage has finished a row.
+     *
+     * @param stage the stage
+     * @param start when the stage started working on the row, from {@link System#nanoTime()}
+     */
+    void finish(Stage stage, long start) {
+        this.counts.get(stage).incrementAndGet();
+        this.busyNanos.get(stage).addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Gets the number of rows a stage has finished.
+     *
+     * @param stage the stage
+     * @return the number of rows
+     */
+    public long getCount(Stage stage) {
+        return this.counts.get(stage).get();
+    }
+
+    /**
+     * Gets the time a stage has spent working rather than waiting, summed over its threads.
+     *
+     * @param stage the stage
+     * @return the busy time in milliseconds
+     */
+    public long getBusyMillis(Stage stage) {
+        return TimeUnit.NANOSECONDS.toMillis(this.busyNanos.get(stage).get());
+    }
+
+    /**
+     * Describes the throughput of each stage.
+     *
+     * @return one line per stage with its row count, busy time and rows per busy second
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            long busy = Math.max(getBusyMillis(stage), 1);
+            int stageThreads = stage == Stage.TOKENIZE ? this.threads : 1;
+            sb.append(stage.name().toLowerCase()).append(": ").append(getCount(stage)).append(" rows, ")
+                    .append(busy).append(" ms busy on ").append(stageThreads).append(stageThreads == 1 ? " thread, " : " threads, ")
+                    .append(getCount(stage) * 1000 * stageThreads / busy).append(" rows/s\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decides which rows of a report are uploaded.
+     */
+    public interface RowFilter {
+        /**
+         * Checks whether a row should be uploaded.
+         *
+         * @param values the values of the row
+         * @return true if the row should be uploaded
+         */
+        boolean accept(String[] values);
+    }
+
+    /**
+     * A row of the report moving through the pipeline.
+     */
+    static class Row {
+
+        /** Position of the row among the uploaded rows. */
+        final int seq;
+
+        /** Line of the report the row ends on. */
+        final long line;
+
+        /** Values of the upload type's columns, in the order of its columns. */
+        final String[] fields;
+
+        /** The tokens of the query, set by the tokenize stage. */
+        TokenList tokens;
+
+        /** The search term, set by the categorize stage. */
+        SearchTerm searchTerm;
+
+        /**
+         * Constructs a Row.
+         *
+         * @param seq the position of the row among the uploaded rows
+         * @param line the line of the report the row ends on
+         * @param fields the values of the upload type's columns
+         */
+        Row(int seq, long line, String[] fields) {
+            this.seq = seq;
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+}
@@ -4,14 +4,13 @@ import java.awt.CardLayout;
 import java.awt.Dimension;
 
 import javax.swing.JFrame;
-import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 
 /**
  * A frame that provides advanced settings options for keyword generation.
  * <p>
  * This class presents a user interface with multiple tabs for configuring advanced settings related 
- * to keyword generation. It includes tabs for Dictionary, Product List, and List Info.
+ * to keyword generation. It includes tabs for Dictionary, Product List, List Info, and Performance.
  * </p>
  */
 public class AdvancedSettingsFrame extends JFrame {
@@ -44,7 +43,8 @@ public class AdvancedSettingsFrame extends JFrame {
         // tabPane.addTab("Unclassified Tokens", UnclassifiedTokensTab.getInstance());
         //tabPane.addTab("Token Search", TokenSearchTab.getInstance());
         tabPane.addTab("Product List", ProductListTab.getInstance());
-        tabPane.addTab("List Info", new JScrollPane(ListInfoTab.getInstance()));
+        tabPane.addTab("List Info", ListInfoTab.getInstance());
+        tabPane.addTab("Performance", PerformanceTab.getInstance());
         add(tabPane);
     }
 
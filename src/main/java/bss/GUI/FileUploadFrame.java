@@ -8,6 +8,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JButton;
 import javax.swing.JComboBox;
@@ -15,10 +16,13 @@ import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
 
 import com.toedter.calendar.JDateChooser;
 
+import bss.Data.DataAccess;
 import bss.Data.FileUpload;
 
 /**
@@ -144,13 +148,51 @@ public class FileUploadFrame extends JFrame {
                     System.out.println("upload");
                     JFileChooser fileChooser = new JFileChooser();
                     int res = fileChooser.showOpenDialog(null);
-                    if (res == JFileChooser.APPROVE_OPTION) {
-                        fileUpload.read(new File(fileChooser.getSelectedFile().getAbsolutePath()));
+                    if (res == JFileChooser.APPROVE_OPTION && fileUpload.read(new File(fileChooser.getSelectedFile().getAbsolutePath()))
+                            && fileUpload.getLastPipeline() != null) {
+                        JOptionPane.showMessageDialog(FileUploadFrame.this, "Upload done.\n" + fileUpload.getLastPipeline(),
+                                "Upload File", JOptionPane.INFORMATION_MESSAGE);
                     }
                 }
             }
         });
 
+        JButton exportButton = p.addButton("Export as JSON", 1, 5, 1, 1);
+        p.setGBCAnchor(exportButton, GridBagConstraints.PAGE_END);
+        p.setGBCInsets(exportButton, new Insets(5, 5, 5, 5));
+        exportButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // the export waits for the queued writes of the dataset, so it runs off the event dispatch thread
+                exportButton.setEnabled(false);
+                new SwingWorker<Boolean, Void>() {
+                    @Override
+                    protected Boolean doInBackground() {
+                        return DataAccess.exportSearchTerms("testData");
+                    }
+
+                    @Override
+                    protected void done() {
+                        exportButton.setEnabled(true);
+                        try {
+                            if (get()) {
+                                JOptionPane.showMessageDialog(FileUploadFrame.this, "Search terms exported to " + DataAccess.getPath("testData") + ".json",
+                                        "Export", JOptionPane.INFORMATION_MESSAGE);
+                            }
+                            else {
+                                JOptionPane.showMessageDialog(FileUploadFrame.this, "The search terms could not be exported.",
+                                        "Export", JOptionPane.ERROR_MESSAGE);
+                            }
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        } catch (ExecutionException ex) {
+                            System.out.println("can't export search terms: " + ex.getCause());
+                        }
+                    }
+                }.execute();
+            }
+        });
+
         add(p);
     }
 
@@ -1,13 +1,19 @@
 package bss.GUI;
 
-import java.awt.GridBagConstraints;
 import java.util.ArrayList;
-import java.util.HashMap;
 
+import javax.swing.JTable;
+
+import bss.GUI.KeywordMatchTableModel.Column;
 import bss.Keywords.KeywordMatch;
 
 /**
  * A panel that displays a list of generated keywords and their associated data.
+ * <p>
+ * The keywords are shown in a table over a {@link KeywordMatchTableModel}, which only renders the visible rows
+ * and can be sorted by score, orders or CVR without generating the list again. {@code ListInfoTab} shows the
+ * same model.
+ * </p>
  */
 public class KeywordListPanel extends JPanelHelper {
 
@@ -17,10 +23,14 @@ public class KeywordListPanel extends JPanelHelper {
     static KeywordListPanel instance = null;
 
     /**
-     * A map that stores the columns of the keyword list panel.
-     * Each entry maps a column header to its corresponding {@code JPanelHelper}.
+     * The generated keywords, shared with {@code ListInfoTab}.
+     */
+    KeywordMatchTableModel model;
+
+    /**
+     * The table showing the generated keywords.
      */
-    HashMap<String, JPanelHelper> columns;
+    JTable table;
 
     private KeywordListPanel() {
         super();
@@ -32,35 +42,24 @@ public class KeywordListPanel extends JPanelHelper {
      * @param matchedList the list of {@code KeywordMatch} objects to display
      */
     public void updateList(ArrayList<KeywordMatch> matchedList) {
-        for (JPanelHelper column : this.columns.values()) {
-            column.removeAll();
-        }
+        this.model.setMatches(matchedList);
+    }
 
-        int i = 1;
-        for (KeywordMatch kw : matchedList) {
-            //if (kw.getScore() >= 0) {
-                this.columns.get("% Match").addLabel(String.format("%.2f", kw.getScore() * 100) + "%", 0, i, 1, 1);
-                this.columns.get("Orders").addLabel(String.format("%d", kw.getOrders()), 0, i, 1, 1);
-                this.columns.get("CVR").addLabel(String.format("%.0f", kw.getCVR() * 100) + "%", 0, i, 1, 1);
-                this.columns.get("Keyword").addLabel(kw.getKeyword(), 0, i, 1, 1);
-                i++;
-            //}
-        }
-        revalidate();
+    /**
+     * Gets the model holding the generated keywords.
+     *
+     * @return the model
+     */
+    public KeywordMatchTableModel getModel() {
+        return this.model;
     }
 
     @Override
     protected void initComponents() {
-        addLabel("% Match", 0, 0, 1, 1);
-        addLabel("Orders", 1, 0, 1, 1);
-        addLabel("CVR", 2, 0, 1, 1);
-        addLabel("Keyword", 3, 0, 1, 1);
-
-        this.columns = new HashMap<>();
-        this.columns.put("% Match", addPanel(new JPanelHelper(), 0, 1, 1, GridBagConstraints.REMAINDER));
-        this.columns.put("Orders", addPanel(new JPanelHelper(), 1, 1, 1, GridBagConstraints.REMAINDER));
-        this.columns.put("CVR", addPanel(new JPanelHelper(), 2, 1, 1, GridBagConstraints.REMAINDER));
-        this.columns.put("Keyword", addPanel(new JPanelHelper(), 3, 1, 1, GridBagConstraints.REMAINDER));
+        this.model = new KeywordMatchTableModel();
+        this.table = this.model.createTable(Column.MATCH, Column.ORDERS, Column.CVR, Column.KEYWORD);
+        this.table.getColumnModel().getColumn(3).setPreferredWidth(400);
+        addScrollPane(this.table, 0, 0, 1, 1);
     }
 
     /**
@@ -0,0 +1,243 @@
+package bss.GUI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableRowSorter;
+
+import bss.Keywords.Categories;
+import bss.Keywords.KeywordMatch;
+
+/**
+ * A table model over a list of generated keywords, shared by {@code KeywordListPanel} and {@code ListInfoTab}.
+ * <p>
+ * The model keeps a reference to the generated list and reads each cell from its {@link KeywordMatch} when the
+ * cell is painted, so a table only does work for the rows that are visible and holds no components or strings
+ * per row. Each table created with {@link #createTable(Column...)} shows its own selection of columns and sorts
+ * them on its own.
+ * </p>
+ */
+public class KeywordMatchTableModel extends AbstractTableModel {
+
+    /**
+     * The columns the model provides, each reading its value from a {@link KeywordMatch}.
+     */
+    public enum Column {
+        MATCH("% Match", Double.class, true) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                return kw.getScore();
+            }
+
+            @Override
+            String format(Object value) {
+                return String.format("%.2f", (Double) value * 100) + "%";
+            }
+        },
+        ORDERS("Orders", Integer.class, true) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                return kw.getOrders();
+            }
+        },
+        CVR("CVR", Double.class, true) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                return kw.getCVR();
+            }
+
+            @Override
+            String format(Object value) {
+                return String.format("%.0f", (Double) value * 100) + "%";
+            }
+        },
+        KEYWORD("Keyword", String.class, true) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                return kw.getKeyword();
+            }
+        },
+        TOKENS("Tokens", String.class, false) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                return String.join(" ", kw.getTokens());
+            }
+        },
+        CATEGORIZED_TOKENS("Categorized Tokens", String.class, false) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<Categories, List<String>> entry : kw.getCategorizedTokens().entrySet()) {
+                    if (entry.getValue().isEmpty()) {
+                        continue;
+                    }
+                    if (sb.length() > 0) {
+                        sb.append("  ");
+                    }
+                    sb.append(entry.getKey().name()).append(": ").append(String.join(" ", entry.getValue()));
+                }
+                return sb.toString();
+            }
+        },
+        TF("TF", String.class, false) {
+            @Override
+            Object getValue(KeywordMatch kw) {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<String, Double> entry : kw.getTF().entrySet()) {
+                    if (sb.length() > 0) {
+                        sb.append("  ");
+                    }
+                    sb.append(entry.getKey()).append(" ").append(String.format("%.2f", entry.getValue()));
+                }
+                return sb.toString();
+            }
+        };
+
+        /** The column header. */
+        final String header;
+
+        /** The type of the values, which decides how the column sorts. */
+        final Class<?> type;
+
+        /** Whether the table can be sorted by the column. */
+        final boolean sortable;
+
+        Column(String header, Class<?> type, boolean sortable) {
+            this.header = header;
+            this.type = type;
+            this.sortable = sortable;
+        }
+
+        /**
+         * Reads the value of the column from a keyword.
+         *
+         * @param kw the keyword
+         * @return the value
+         */
+        abstract Object getValue(KeywordMatch kw);
+
+        /**
+         * Formats a value of the column for display.
+         *
+         * @param value the value read by {@link #getValue(KeywordMatch)}
+         * @return the displayed text
+         */
+        String format(Object value) {
+            return String.valueOf(value);
+        }
+    }
+
+    /** The keywords shown, in the order they were generated. */
+    List<KeywordMatch> matches;
+
+    /**
+     * Constructs an empty KeywordMatchTableModel.
+     */
+    public KeywordMatchTableModel() {
+        this.matches = new ArrayList<>();
+    }
+
+    /**
+     * Replaces the keywords shown by every table using this model.
+     *
+     * @param matchedList the generated keywords
+     */
+    public void setMatches(List<KeywordMatch> matchedList) {
+        this.matches = matchedList != null ? matchedList : new ArrayList<KeywordMatch>();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Gets the keyword shown in a row of the model.
+     *
+     * @param row the row index in the model, not in a sorted table
+     * @return the keyword
+     */
+    public KeywordMatch getMatch(int row) {
+        return this.matches.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.matches.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return Column.values().length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return Column.values()[column].header;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return Column.values()[column].type;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return Column.values()[column].getValue(this.matches.get(row));
+    }
+
+    /**
+     * Creates a table that shows some of the columns of this model and sorts them when their header is clicked.
+     *
+     * @param columns the columns to show, in order
+     * @return the table
+     */
+    public JTable createTable(Column... columns) {
+        JTable table = new JTable(this);
+        table.setAutoCreateColumnsFromModel(false);
+        while (table.getColumnCount() > 0) {
+            table.removeColumn(table.getColumnModel().getColumn(0));
+        }
+
+        TableRowSorter<KeywordMatchTableModel> sorter = new TableRowSorter<>(this);
+        for (Column column : columns) {
+            TableColumn tableColumn = new TableColumn(column.ordinal());
+            tableColumn.setHeaderValue(column.header);
+            tableColumn.setCellRenderer(new ColumnRenderer(column));
+            table.addColumn(tableColumn);
+        }
+        for (Column column : Column.values()) {
+            sorter.setSortable(column.ordinal(), column.sortable);
+        }
+        table.setRowSorter(sorter);
+        table.setFillsViewportHeight(true);
+        return table;
+    }
+
+    /**
+     * Renders the cells of a column with the column's format.
+     */
+    static class ColumnRenderer extends DefaultTableCellRenderer {
+
+        /** The column rendered. */
+        final Column column;
+
+        /**
+         * Constructs a ColumnRenderer for a column.
+         *
+         * @param column the column rendered
+         */
+        ColumnRenderer(Column column) {
+            this.column = column;
+            if (column.type != String.class) {
+                setHorizontalAlignment(RIGHT);
+            }
+        }
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value != null ? this.column.format(value) : "");
+        }
+    }
+}
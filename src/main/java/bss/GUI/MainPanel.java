@@ -5,6 +5,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
 import javax.swing.JButton;
+import javax.swing.JLabel;
+
+import bss.Startup;
+import bss.StartupTask;
 
 /**
  * MainPanel is a singleton class that represents the main panel of the application GUI.
@@ -16,6 +20,9 @@ public class MainPanel extends JPanelHelper {
     /** Button to toggle the visibility of the ProductSelectPanel */
     JButton toggle;
 
+    /** Label listing the resources that are still loading in the background */
+    JLabel startupLabel;
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -33,7 +40,8 @@ public class MainPanel extends JPanelHelper {
 
         addLabel("Keywords", 2, 0, 5, 1);
         //Font smallerFont = new Font(font.getName(), font.getStyle(), font.getSize() - 1);
-        addScrollPane(KeywordListPanel.getInstance(), 2, 1, 5, 10);
+        // the panel scrolls its own table, so it keeps the weights of a scroll pane
+        add(KeywordListPanel.getInstance(), 2, 1, 5, 10, 50.0, 50.0, GridBagConstraints.BOTH);
 
         JButton uploadButton = addButton("Upload", 6, 0, 1, 1);
         uploadButton.setFont(this.smallerFont);
@@ -46,6 +54,14 @@ public class MainPanel extends JPanelHelper {
                 // fileUpload.read();
             }
         });
+        // uploads are tokenized, so wait for the tokenizer
+        uploadButton.setEnabled(false);
+        Startup.whenReady(new Runnable() {
+            @Override
+            public void run() {
+                uploadButton.setEnabled(true);
+            }
+        }, StartupTask.TOKENIZER);
 
         this.toggle = addAccordionToggle("left arrow.png", 0, 0, 1, 1);
         this.toggle.addActionListener(new ActionListener() {
@@ -71,6 +87,25 @@ public class MainPanel extends JPanelHelper {
 
         //ProductSelectPanel.getInstance().setMinimumSize(ProductSelectPanel.getInstance().getPreferredSize());
         addAccordionPanel(ProductSelectPanel.getInstance(), 0, 1, 2, 9);
+
+        this.startupLabel = addLabelLeft(" ", 0, 11, 7, 1);
+        this.startupLabel.setFont(this.smallerFont);
+        refreshStartupStatus();
+        Startup.addListener(new Runnable() {
+            @Override
+            public void run() {
+                refreshStartupStatus();
+            }
+        });
+    }
+
+    /**
+     * Shows which resources are still loading, hiding the label once everything is ready.
+     */
+    void refreshStartupStatus() {
+        String status = Startup.getStatus();
+        this.startupLabel.setText(status);
+        this.startupLabel.setVisible(!status.isEmpty());
     }
 
     /**
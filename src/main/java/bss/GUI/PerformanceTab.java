@@ -0,0 +1,176 @@
+package bss.GUI;
+
+import java.awt.GridBagConstraints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.SwingWorker;
+import javax.swing.event.AncestorEvent;
+import javax.swing.event.AncestorListener;
+
+import bss.Data.DataAccess;
+import bss.Data.DataRepository;
+import bss.KeywordGeneration.ParallelScorer;
+import bss.Keywords.AnnotationProfile;
+import bss.Keywords.BatchTokenizer;
+import bss.Keywords.SearchTerm;
+import bss.Keywords.Tokenizer;
+
+/**
+ * A tab in the {@code AdvancedSettingsFrame} for tuning how much of the machine keyword generation and
+ * tokenization use.
+ */
+public class PerformanceTab extends JPanelHelper {
+
+    /**
+     * Singleton instance of {@code PerformanceTab}.
+     */
+    static PerformanceTab instance = null;
+
+    private PerformanceTab() {
+        super();
+    }
+
+    @Override
+    protected void initComponents() {
+        ArrayList<Object> threadCounts = new ArrayList<>();
+        for (int i = 1; i <= Runtime.getRuntime().availableProcessors(); i++) {
+            threadCounts.add(i);
+        }
+
+        addLabelRight("Scoring Threads:", 0, 0, 1, 1);
+        JComboBox<Object> threadsComboBox = addComboBox(threadCounts, 1, 0, 1, 1);
+        threadsComboBox.removeItem("");
+        threadsComboBox.setSelectedItem(ParallelScorer.getParallelism());
+        threadsComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (threadsComboBox.getSelectedItem() != null) {
+                    ParallelScorer.setParallelism((Integer) threadsComboBox.getSelectedItem());
+                }
+            }
+        });
+
+        addLabelRight("Tokenizer Threads:", 0, 1, 1, 1);
+        JComboBox<Object> tokenizerComboBox = addComboBox(threadCounts, 1, 1, 1, 1);
+        tokenizerComboBox.removeItem("");
+        tokenizerComboBox.setSelectedItem(BatchTokenizer.getThreads());
+        tokenizerComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (tokenizerComboBox.getSelectedItem() != null) {
+                    BatchTokenizer.setThreads((Integer) tokenizerComboBox.getSelectedItem());
+                }
+            }
+        });
+
+        ArrayList<Object> profiles = new ArrayList<>(Arrays.asList((Object[]) AnnotationProfile.values()));
+
+        addLabelRight("Bulk Tokenization:", 0, 2, 1, 1);
+        JComboBox<Object> bulkComboBox = addComboBox(profiles, 1, 2, 1, 1);
+        bulkComboBox.removeItem("");
+        bulkComboBox.setSelectedItem(Tokenizer.getBulkProfile());
+        bulkComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Tokenizer.setBulkProfile((AnnotationProfile) bulkComboBox.getSelectedItem());
+            }
+        });
+
+        addLabelRight("Interactive Tokenization:", 0, 3, 1, 1);
+        JComboBox<Object> interactiveComboBox = addComboBox(profiles, 1, 3, 1, 1);
+        interactiveComboBox.removeItem("");
+        interactiveComboBox.setSelectedItem(Tokenizer.getInteractiveProfile());
+        interactiveComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Tokenizer.setInteractiveProfile((AnnotationProfile) interactiveComboBox.getSelectedItem());
+            }
+        });
+
+        JButton compareButton = addButton("Compare Profiles", 0, 4, 1, 1);
+        JLabel compareLabel = addLabelLeft(" ", 1, 4, 1, 1);
+        compareButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // annotating every query twice takes far too long for the event dispatch thread
+                compareButton.setEnabled(false);
+                compareLabel.setText("Comparing...");
+                compareLabel.setToolTipText(null);
+                new SwingWorker<String, Void>() {
+                    @Override
+                    protected String doInBackground() {
+                        ArrayList<String> queries = new ArrayList<>();
+                        try (Stream<SearchTerm> kwStream = DataAccess.streamSearchTerms("testData")) {
+                            Iterator<SearchTerm> kwIterator = kwStream.iterator();
+                            while (kwIterator.hasNext()) {
+                                queries.add(kwIterator.next().getKeyword());
+                            }
+                        }
+                        return Tokenizer.compareProfiles(queries);
+                    }
+
+                    @Override
+                    protected void done() {
+                        compareButton.setEnabled(true);
+                        try {
+                            // the summary goes in the label and the queries that differ in its tooltip
+                            String[] report = get().split("\n");
+                            compareLabel.setText(report[0]);
+                            StringBuilder tooltip = new StringBuilder("<html>");
+                            for (String line : report) {
+                                tooltip.append(line.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")).append("<br>");
+                            }
+                            compareLabel.setToolTipText(tooltip.append("</html>").toString());
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        } catch (ExecutionException ex) {
+                            compareLabel.setText(" ");
+                            System.out.println("can't compare profiles: " + ex.getCause());
+                        }
+                    }
+                }.execute();
+            }
+        });
+
+        addLabelRight("Dataset Cache:", 0, 5, 1, 1);
+        JLabel cacheLabel = addLabelLeft(" ", 1, 5, 1, 1);
+        cacheLabel.addAncestorListener(new AncestorListener() {
+            @Override
+            public void ancestorAdded(AncestorEvent event) {
+                // the counts change while the tab is hidden, so they are read again whenever it is shown
+                cacheLabel.setText(DataRepository.getHits() + " reads from memory, " + DataRepository.getMisses() + " from disk");
+            }
+
+            @Override
+            public void ancestorRemoved(AncestorEvent event) {
+            }
+
+            @Override
+            public void ancestorMoved(AncestorEvent event) {
+            }
+        });
+
+        addPanel(new JPanelHelper(), 0, 6, 2, GridBagConstraints.REMAINDER, 1.0, 1.0, GridBagConstraints.BOTH);
+    }
+
+    /**
+     * Gets the singleton instance of {@code PerformanceTab}.
+     *
+     * @return the singleton instance of {@code PerformanceTab}
+     */
+    public static PerformanceTab getInstance() {
+        if (PerformanceTab.instance == null) {
+            PerformanceTab.instance = new PerformanceTab();
+        }
+        return PerformanceTab.instance;
+    }
+}
@@ -6,10 +6,14 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.swing.JButton;
 
 import bss.Data.DataAccess;
+import bss.Data.DataRepository;
+import bss.Keywords.AnnotationProfile;
+import bss.Keywords.BatchTokenizer;
 import bss.Keywords.Keyword;
 import bss.Keywords.KeywordDictionary;
 import bss.Keywords.Tokenizer;
@@ -50,7 +54,7 @@ public class ProductListTab extends JPanelHelper {
         p.addLabel("Categorized Tokens", 2, 0, 1, 1);
         p.addLabel("Description", 10, 0, 1, 1);
 
-        LinkedHashMap<String, Keyword> masterList = DataAccess.getAmazonList();
+        Map<String, Keyword> masterList = DataRepository.getAmazonList();
 
         int n = 1;
         for (String productId : masterList.keySet()) {
@@ -111,9 +115,11 @@ public class ProductListTab extends JPanelHelper {
             public void actionPerformed(ActionEvent e) {
                 setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
                 LinkedHashMap<String, Keyword> amazonList = DataAccess.getAmazonList();
-                for (Keyword kw : amazonList.values()) {
-                    kw.tokenize();
-                    kw.computeTF();
+                AnnotationProfile previous = Tokenizer.useProfile(Tokenizer.getBulkProfile());
+                try {
+                    BatchTokenizer.tokenizeAll(new ArrayList<>(amazonList.values()));
+                } finally {
+                    Tokenizer.useProfile(previous);
                 }
                 System.out.println("done");
                 DataAccess.writeToJson("amazonTitles", amazonList);
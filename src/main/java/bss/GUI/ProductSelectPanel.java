@@ -1,17 +1,26 @@
 package bss.GUI;
 
-import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JProgressBar;
 import javax.swing.JSlider;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
+import bss.Startup;
+import bss.StartupTask;
+import bss.KeywordGeneration.DecomposedScores;
+import bss.KeywordGeneration.GenerationProgress;
 import bss.KeywordGeneration.KeywordGenerator;
 import bss.Keywords.Keyword;
 import bss.Keywords.KeywordDictionary;
@@ -22,7 +31,8 @@ import bss.Keywords.SearchTerm;
 /**
  * ProductSelectPanel is a panel that allows users to select product characteristics and generate keywords based on their selections.
  * It extends {@link JPanelHelper} and provides functionality for selecting attributes and generating keywords using the 
- * {@link KeywordGenerator}.
+ * {@link KeywordGenerator}. Keywords are generated in the background, with a progress bar and a cancel button,
+ * and ranked again when the weight sliders in the {@link SettingsPanel} move.
  */
 public class ProductSelectPanel extends JPanelHelper {
     /** Singleton instance of the ProductSelectPanel */
@@ -34,6 +44,42 @@ public class ProductSelectPanel extends JPanelHelper {
     /** List of combo boxes for selecting additional attributes */
     ArrayList<JComboBox<Object>> attributeComboBoxes;
 
+    /** How often the progress bar is refreshed while keywords are generated, in milliseconds */
+    static final int PROGRESS_INTERVAL = 100;
+
+    /** Shows how many search terms the running generation has scored */
+    JProgressBar progressBar;
+
+    /** Cancels the running generation */
+    JButton cancelButton;
+
+    /** Refreshes the progress bar while a generation runs */
+    Timer progressTimer;
+
+    /** The generation running in the background, or null if there is none */
+    SwingWorker<ArrayList<KeywordMatch>, ArrayList<KeywordMatch>> generation;
+
+    /** Progress of the running generation, or null if there is none */
+    GenerationProgress generationProgress;
+
+    /** How long the weight sliders must rest before the results are ranked again, in milliseconds */
+    static final int RERANK_DELAY = 150;
+
+    /** Scores of the last generation decomposed by weight, or null if there is none */
+    DecomposedScores decomposition;
+
+    /** Waits for the weight sliders to rest before ranking the results again */
+    Timer reRankTimer;
+
+    /** The ranking running in the background, or null if there is none */
+    SwingWorker<ArrayList<KeywordMatch>, Void> reRanking;
+
+    /** The decomposition of the last generation running in the background, or null if there is none */
+    SwingWorker<DecomposedScores, Void> decomposing;
+
+    /** Progress of the running decomposition, or null if there is none */
+    GenerationProgress decompositionProgress;
+
     /**
      * Constructs a ProductSelectPanel and initializes its components.
      */
@@ -51,6 +97,22 @@ public class ProductSelectPanel extends JPanelHelper {
         return (String) this.categoryComboBoxes.get(c).getSelectedItem();
     }
 
+    /**
+     * Gets the attributes selected in the attribute combo boxes.
+     * 
+     * @return the selected attributes, without the empty selections
+     */
+    private ArrayList<String> getAttributeTexts() {
+        ArrayList<String> attributeStrs = new ArrayList<>();
+        for (int i = 0; i < this.attributeComboBoxes.size(); i++) {
+            String str = (String) this.attributeComboBoxes.get(i).getSelectedItem();
+            if (!str.equals("")) {
+                attributeStrs.add(str);
+            }
+        }
+        return attributeStrs;
+    }
+
     /**
      * Sets the weights for category and attribute generators based on user selections and slider values.
      */
@@ -126,27 +188,46 @@ public class ProductSelectPanel extends JPanelHelper {
         generateButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
                 setGeneratorWeights();
-                ArrayList<String> attributeStrs = new ArrayList<>();
-                for (int i = 0; i < attributeComboBoxes.size(); i++) {
-                    String str = (String) attributeComboBoxes.get(i).getSelectedItem();
-                    if (!str.equals("")) {
-                        attributeStrs.add(str);
-                    }
-                }
+                ArrayList<String> attributeStrs = getAttributeTexts();
                 Keyword keyword = new SearchTerm(getCategoryText(Categories.PRODUCT_TYPE), getCategoryText(Categories.DIMENSIONS), getCategoryText(Categories.COLOR), getCategoryText(Categories.QUANTITY), getCategoryText(Categories.MATERIAL), attributeStrs);
-                ArrayList<KeywordMatch> matchedList = KeywordGenerator.generate(keyword);
-                if (matchedList.size() > 1000) {
-                    matchedList = new ArrayList<>(matchedList.subList(0, 1000));
-                }
-                KeywordListPanel.getInstance().updateList(matchedList);
-                ListInfoTab.getInstance().updateList(matchedList);
-                // UnclassifiedTokensTab.getInstance().refreshList();
-                //DataAccess.writeToJson("lastSearch", matchedList);
-                setCursor(Cursor.getDefaultCursor());
+                startGeneration(keyword);
             }
         });
+        generateButton.setEnabled(false);
+        Startup.whenReady(new Runnable() {
+            @Override
+            public void run() {
+                generateButton.setEnabled(true);
+            }
+        }, StartupTask.SEARCH_TERMS);
+
+        this.cancelButton = addButton("Cancel", 0, 8, 1, 1);
+        this.cancelButton.setFont(this.smallerFont);
+        setGBCAnchor(this.cancelButton, GridBagConstraints.LINE_END);
+        this.cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cancelGeneration();
+            }
+        });
+        this.progressBar = new JProgressBar();
+        add(this.progressBar, 1, 8, 1, 1, 0, 0, GridBagConstraints.HORIZONTAL);
+        this.progressTimer = new Timer(PROGRESS_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refreshProgress();
+            }
+        });
+        this.cancelButton.setVisible(false);
+        this.progressBar.setVisible(false);
+        this.reRankTimer = new Timer(RERANK_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                reRank();
+            }
+        });
+        this.reRankTimer.setRepeats(false);
 
         JButton settingsToggle = addAccordionToggle("settings.png", 0, 9, 1, 1);
         setGBCAnchor(settingsToggle, GridBagConstraints.LINE_END);
@@ -167,6 +248,236 @@ public class ProductSelectPanel extends JPanelHelper {
         setGeneratorWeights();
     }
 
+    /**
+     * Starts generating keywords for a keyword on a background thread, cancelling any generation still running.
+     * <p>
+     * The best matches found so far are shown in the {@link KeywordListPanel} and {@link ListInfoTab} while
+     * scoring runs and replaced by the final results once it finishes, unless the generation has been cancelled
+     * or superseded by then. The scores are then decomposed by {@link #startDecomposition(Keyword)}.
+     * </p>
+     * 
+     * @param keyword the keyword built from the selected product characteristics
+     */
+    void startGeneration(Keyword keyword) {
+        cancelGeneration();
+        // the results of the last generation are about to be replaced
+        cancelDecomposition();
+        this.decomposition = null;
+        this.reRanking = null;
+
+        GenerationProgress progress = new GenerationProgress();
+        SwingWorker<ArrayList<KeywordMatch>, ArrayList<KeywordMatch>> worker = new SwingWorker<ArrayList<KeywordMatch>, ArrayList<KeywordMatch>>() {
+            @Override
+            protected ArrayList<KeywordMatch> doInBackground() {
+                return KeywordGenerator.generate(keyword, 1000, 0, progress, new KeywordGenerator.SnapshotListener() {
+                    @Override
+                    public void snapshot(ArrayList<KeywordMatch> matches) {
+                        publish(matches);
+                    }
+                });
+            }
+
+            @Override
+            protected void process(List<ArrayList<KeywordMatch>> snapshots) {
+                // only the latest snapshot is worth showing
+                if (generation == this && !isCancelled()) {
+                    KeywordListPanel.getInstance().updateList(snapshots.get(snapshots.size() - 1));
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (generation != this) {
+                    return;
+                }
+                finishGeneration();
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    ArrayList<KeywordMatch> matchedList = get();
+                    KeywordListPanel.getInstance().updateList(matchedList);
+                    // UnclassifiedTokensTab.getInstance().refreshList();
+                    //DataAccess.writeToJson("lastSearch", matchedList);
+                    startDecomposition(keyword);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    if (!(ex.getCause() instanceof CancellationException)) {
+                        System.out.println("can't generate keywords: " + ex.getCause());
+                    }
+                }
+            }
+        };
+        this.generation = worker;
+        this.generationProgress = progress;
+
+        this.progressBar.setIndeterminate(true);
+        this.progressBar.setVisible(true);
+        this.cancelButton.setVisible(true);
+        this.progressTimer.start();
+        revalidate();
+        worker.execute();
+    }
+
+    /**
+     * Cancels the generation that is running, if any. Its scoring threads stop after their current candidate.
+     */
+    void cancelGeneration() {
+        if (this.generation != null) {
+            this.generationProgress.cancel();
+            this.generation.cancel(false);
+        }
+    }
+
+    /**
+     * Decomposes the scores of the generation that has just finished on a background thread, so that the
+     * results can be ranked again when a weight changes.
+     * <p>
+     * The results of the generation are already shown, so the decomposition runs without a progress bar.
+     * Weight changes made in the meantime are ranked once it has finished.
+     * </p>
+     * 
+     * @param keyword the keyword of the generation
+     */
+    void startDecomposition(Keyword keyword) {
+        GenerationProgress progress = new GenerationProgress();
+        SwingWorker<DecomposedScores, Void> worker = new SwingWorker<DecomposedScores, Void>() {
+            @Override
+            protected DecomposedScores doInBackground() {
+                return KeywordGenerator.decompose(keyword, progress);
+            }
+
+            @Override
+            protected void done() {
+                if (decomposing != this) {
+                    return;
+                }
+                decomposing = null;
+                decompositionProgress = null;
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    decomposition = get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    if (!(ex.getCause() instanceof CancellationException)) {
+                        System.out.println("can't decompose scores: " + ex.getCause());
+                    }
+                }
+            }
+        };
+        this.decomposing = worker;
+        this.decompositionProgress = progress;
+        worker.execute();
+    }
+
+    /**
+     * Cancels the decomposition that is running, if any.
+     */
+    void cancelDecomposition() {
+        if (this.decomposing != null) {
+            this.decompositionProgress.cancel();
+            this.decomposing.cancel(false);
+            this.decomposing = null;
+            this.decompositionProgress = null;
+        }
+    }
+
+    /**
+     * Hides the progress of the generation that has just finished or been cancelled.
+     */
+    void finishGeneration() {
+        this.generation = null;
+        this.generationProgress = null;
+        this.progressTimer.stop();
+        this.progressBar.setVisible(false);
+        this.cancelButton.setVisible(false);
+        revalidate();
+    }
+
+    /**
+     * Shows how many candidates the running generation has scored.
+     */
+    void refreshProgress() {
+        if (this.generationProgress == null) {
+            return;
+        }
+        int total = this.generationProgress.getTotal();
+        if (total > 0) {
+            this.progressBar.setIndeterminate(false);
+            this.progressBar.setMaximum(total);
+            this.progressBar.setValue(this.generationProgress.getScored());
+        }
+    }
+
+    /**
+     * Ranks the results again once the weight sliders have rested for {@link #RERANK_DELAY} milliseconds.
+     */
+    public void weightsChanged() {
+        if (this.decomposition != null || this.generation != null || this.decomposing != null) {
+            this.reRankTimer.restart();
+        }
+    }
+
+    /**
+     * Ranks the candidates of the last generation again for the current slider values on a background thread.
+     * <p>
+     * Only the values of the weights can change this way; if a characteristic has been changed since the
+     * last generation, the results stay as they are until Generate is pressed. While a generation or its
+     * decomposition is running, ranking waits for it to finish.
+     * </p>
+     */
+    void reRank() {
+        if (this.generation != null || this.decomposing != null) {
+            this.reRankTimer.restart();
+            return;
+        }
+        if (this.decomposition == null) {
+            return;
+        }
+        setGeneratorWeights();
+        HashMap<Categories, Double> categoryWeights = new HashMap<>(KeywordGenerator.categoryWeights);
+        HashMap<String, Double> attributeWeights = new HashMap<>(KeywordGenerator.attributeWeights);
+        String productType = getCategoryText(Categories.PRODUCT_TYPE);
+        String dimensions = getCategoryText(Categories.DIMENSIONS);
+        String color = getCategoryText(Categories.COLOR);
+        String quantity = getCategoryText(Categories.QUANTITY);
+        String material = getCategoryText(Categories.MATERIAL);
+        ArrayList<String> attributeStrs = getAttributeTexts();
+        DecomposedScores scores = this.decomposition;
+        SwingWorker<ArrayList<KeywordMatch>, Void> worker = new SwingWorker<ArrayList<KeywordMatch>, Void>() {
+            @Override
+            protected ArrayList<KeywordMatch> doInBackground() {
+                // tokenizing the characteristics is too slow for the event dispatch thread
+                Keyword keyword = new SearchTerm(productType, dimensions, color, quantity, material, attributeStrs);
+                return scores.rank(keyword, categoryWeights, attributeWeights, 1000);
+            }
+
+            @Override
+            protected void done() {
+                if (reRanking != this) {
+                    return;
+                }
+                reRanking = null;
+                try {
+                    ArrayList<KeywordMatch> matchedList = get();
+                    if (matchedList != null) {
+                        KeywordListPanel.getInstance().updateList(matchedList);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    System.out.println("can't rank keywords: " + ex.getCause());
+                }
+            }
+        };
+        this.reRanking = worker;
+        worker.execute();
+    }
+
     /**
      * Gets the singleton instance of the ProductSelectPanel.
      * 
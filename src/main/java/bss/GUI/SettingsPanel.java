@@ -151,8 +151,7 @@ public class SettingsPanel extends JPanelHelper {
             this.categorySliders.get(c).addChangeListener(new ChangeListener() {
                 @Override
                 public void stateChanged(ChangeEvent e) {
-                    System.out.println(c);
-                    System.out.println(categorySliders.get(c).getValue());
+                    ProductSelectPanel.getInstance().weightsChanged();
                 }
             });
         }
@@ -160,7 +159,7 @@ public class SettingsPanel extends JPanelHelper {
             s.addChangeListener(new ChangeListener() {
                 @Override
                 public void stateChanged(ChangeEvent e) {
-
+                    ProductSelectPanel.getInstance().weightsChanged();
                 }
             });
         }
@@ -0,0 +1,76 @@
+package bss.GUI;
+
+import java.util.EnumMap;
+
+import javax.swing.JLabel;
+
+import bss.Startup;
+import bss.StartupTask;
+
+/**
+ * A panel shown in place of the {@link MainPanel} while the resources it needs are loading, listing the
+ * progress of each {@link StartupTask}.
+ */
+public class StartupPanel extends JPanelHelper {
+    /**
+     * Singleton instance of {@code StartupPanel}.
+     */
+    static StartupPanel instance = null;
+
+    /** Label showing the progress of each task. */
+    EnumMap<StartupTask, JLabel> statusLabels;
+
+    private StartupPanel() {
+        super();
+    }
+
+    @Override
+    protected void initComponents() {
+        addLabel("Starting Keyword Generator", 0, 0, 2, 1);
+
+        this.statusLabels = new EnumMap<>(StartupTask.class);
+        int y = 1;
+        for (StartupTask task : StartupTask.values()) {
+            addLabelRight(task.description + ":", 0, y, 1, 1);
+            this.statusLabels.put(task, addLabelLeft(" ", 1, y, 1, 1));
+            y++;
+        }
+        refreshStatus();
+
+        Startup.addListener(new Runnable() {
+            @Override
+            public void run() {
+                refreshStatus();
+            }
+        });
+    }
+
+    /**
+     * Updates the progress shown for each task.
+     */
+    void refreshStatus() {
+        for (StartupTask task : this.statusLabels.keySet()) {
+            if (Startup.hasFailed(task)) {
+                this.statusLabels.get(task).setText("failed");
+            }
+            else if (Startup.isReady(task)) {
+                this.statusLabels.get(task).setText("ready");
+            }
+            else {
+                this.statusLabels.get(task).setText("loading...");
+            }
+        }
+    }
+
+    /**
+     * Gets the singleton instance of {@code StartupPanel}.
+     *
+     * @return the singleton instance of {@code StartupPanel}
+     */
+    public static StartupPanel getInstance() {
+        if (StartupPanel.instance == null) {
+            StartupPanel.instance = new StartupPanel();
+        }
+        return StartupPanel.instance;
+    }
+}
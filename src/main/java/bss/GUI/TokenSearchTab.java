@@ -3,18 +3,28 @@ package bss.GUI;
 import java.awt.GridBagConstraints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
-import bss.Data.DataAccess;
+import bss.Data.DataRepository;
+import bss.Data.TokenIndex;
 import bss.Keywords.Keyword;
-import bss.Keywords.SearchTerm;
 
 /**
  * A tab in the {@code AdvancedSettingsFrame} that allows the user to search for tokens and displays 
  * products and search terms that contain the specified token.
+ * <p>
+ * Searches are answered from the {@link TokenIndex} of {@link DataRepository}, which also completes the
+ * token as it is typed. The index is fetched on a background thread, since it is rebuilt when a dataset
+ * has changed, and the last one fetched is kept for completing tokens on the event dispatch thread.
+ * </p>
  */
 public class TokenSearchTab extends JPanelHelper {
 
@@ -33,6 +43,41 @@ public class TokenSearchTab extends JPanelHelper {
      */
     JPanelHelper searchTermColumn;
 
+    /**
+     * Field the token to search for is typed in.
+     */
+    JTextField searchField;
+
+    /**
+     * Dropdown listing the tokens that start with the text typed so far.
+     */
+    JPopupMenu suggestions;
+
+    /**
+     * Whether the search field is being set to a chosen suggestion, which should not be completed again.
+     */
+    boolean choosingSuggestion;
+
+    /**
+     * The token index the last search was answered from, or null until it has been fetched.
+     */
+    TokenIndex index;
+
+    /**
+     * The search fetching the token index in the background, or null if there is none.
+     */
+    SwingWorker<TokenIndex, Void> indexing;
+
+    /**
+     * Maximum number of tokens listed in the dropdown.
+     */
+    static final int MAX_SUGGESTIONS = 10;
+
+    /**
+     * Name of the search-term dataset that is searched.
+     */
+    static final String DATASET = "keywordList";
+
     private TokenSearchTab() {
         super();
     }
@@ -46,38 +91,29 @@ public class TokenSearchTab extends JPanelHelper {
         setGBCFill(this.searchTermColumn, GridBagConstraints.HORIZONTAL);
         setGBCAnchor(this.searchTermColumn, GridBagConstraints.NORTHEAST);
 
-        JTextField searchField = addTextField(100, 0, 0, 2, 1);
-        searchField.addActionListener(new ActionListener() {
+        this.searchField = addTextField(100, 0, 0, 2, 1);
+        this.searchField.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                productColumn.removeAll();
-                searchTermColumn.removeAll();
-
-                String s = searchField.getText();
-                LinkedHashMap<String, Keyword> amazonList = DataAccess.getAmazonList();
-                int j = 0;
-                for (String productID : amazonList.keySet()) {
-                    boolean hasLabel = false;
-
-                    if (amazonList.get(productID).getTokens().contains(s)) {
-                        productColumn.addLabelLeft(productID, 0, j, 1, 1);
-                        productColumn.addLabelLeft(amazonList.get(productID).getKeyword(), 1, j, 1, 1);
-                        j++;
-                    }
-                }
+                suggestions.setVisible(false);
+                search(searchField.getText());
+            }
+        });
+        this.suggestions = new JPopupMenu();
+        this.suggestions.setFocusable(false);
+        this.searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refreshSuggestions();
+            }
 
-                ArrayList<SearchTerm> searchTermList = DataAccess.getSearchTermList("keywordList");
-                j = 0;
-                for (Keyword kw : searchTermList) {
-                    if (kw.getTokens().contains(s)) {
-                        searchTermColumn.addLabelLeft(kw.getKeyword(), 0, j, 1, 1);
-                        j++;
-                    }
-                }
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refreshSuggestions();
+            }
 
-                productColumn.revalidate();
-                searchTermColumn.revalidate();
-                revalidate();
+            @Override
+            public void changedUpdate(DocumentEvent e) {
             }
         });
         addLabel("Product Descriptions", 0, 1, 1, 1);
@@ -86,6 +122,142 @@ public class TokenSearchTab extends JPanelHelper {
         addScrollPane(this.searchTermColumn, 1, 2, 1, 1);
     }
 
+    /**
+     * Lists the products and search terms that contain a token once the token index has been fetched.
+     * <p>
+     * A search ending in {@code *} lists those containing any token that starts with the text before it.
+     * </p>
+     *
+     * @param s the token to search for
+     */
+    void search(String s) {
+        fetchIndex(s);
+    }
+
+    /**
+     * Fetches the current token index on a background thread and keeps it for completing tokens.
+     *
+     * @param s the token to search for once the index has been fetched, or null to complete the text typed
+     *          so far instead
+     */
+    void fetchIndex(String s) {
+        SwingWorker<TokenIndex, Void> worker = new SwingWorker<TokenIndex, Void>() {
+            @Override
+            protected TokenIndex doInBackground() {
+                return DataRepository.getTokenIndex(DATASET);
+            }
+
+            @Override
+            protected void done() {
+                if (indexing != this) {
+                    return;
+                }
+                indexing = null;
+                try {
+                    index = get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException ex) {
+                    System.out.println("can't index tokens: " + ex.getCause());
+                    return;
+                }
+                if (s != null) {
+                    showResults(index, s);
+                }
+                else {
+                    refreshSuggestions();
+                }
+            }
+        };
+        this.indexing = worker;
+        worker.execute();
+    }
+
+    /**
+     * Lists the products and search terms that contain a token.
+     * <p>
+     * A search ending in {@code *} lists those containing any token that starts with the text before it.
+     * </p>
+     *
+     * @param index the token index to search
+     * @param s the token to search for
+     */
+    void showResults(TokenIndex index, String s) {
+        this.productColumn.removeAll();
+        this.searchTermColumn.removeAll();
+
+        boolean prefix = s.endsWith("*");
+        if (prefix) {
+            s = s.substring(0, s.length() - 1);
+        }
+        int j = 0;
+        for (String productID : index.findProducts(s, prefix)) {
+            this.productColumn.addLabelLeft(productID, 0, j, 1, 1);
+            this.productColumn.addLabelLeft(index.getProduct(productID).getKeyword(), 1, j, 1, 1);
+            j++;
+        }
+
+        j = 0;
+        for (Keyword kw : index.findSearchTerms(s, prefix)) {
+            this.searchTermColumn.addLabelLeft(kw.getKeyword(), 0, j, 1, 1);
+            j++;
+        }
+
+        this.productColumn.revalidate();
+        this.searchTermColumn.revalidate();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Shows the tokens that start with the text typed so far below the search field.
+     * <p>
+     * The dropdown is rebuilt after the document has been updated, since a document listener may not change
+     * the text field. Tokens are completed from the last index fetched, which is fetched first if there is
+     * none yet.
+     * </p>
+     */
+    void refreshSuggestions() {
+        if (this.choosingSuggestion) {
+            return;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                suggestions.setVisible(false);
+                suggestions.removeAll();
+                String s = searchField.getText();
+                if (s.isEmpty() || s.endsWith("*") || !searchField.isShowing()) {
+                    return;
+                }
+                if (index == null) {
+                    if (indexing == null) {
+                        fetchIndex(null);
+                    }
+                    return;
+                }
+                for (String token : index.complete(s, MAX_SUGGESTIONS)) {
+                    JMenuItem item = new JMenuItem(token);
+                    item.addActionListener(new ActionListener() {
+                        @Override
+                        public void actionPerformed(ActionEvent e) {
+                            choosingSuggestion = true;
+                            searchField.setText(token);
+                            choosingSuggestion = false;
+                            suggestions.setVisible(false);
+                            search(token);
+                        }
+                    });
+                    suggestions.add(item);
+                }
+                if (suggestions.getComponentCount() > 0) {
+                    suggestions.show(searchField, 0, searchField.getHeight());
+                }
+            }
+        });
+    }
+
     /**
      * Gets the singleton instance of {@code TokenSearchTab}.
      *
@@ -0,0 +1,372 @@
+package bss.KeywordGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import bss.Data.DataAccess;
+import bss.Keywords.AnnotationProfile;
+import bss.Keywords.BatchTokenizer;
+import bss.Keywords.Categories;
+import bss.Keywords.SearchTerm;
+import bss.Keywords.TokenList;
+import bss.Keywords.TokenOccurrenceIndex;
+import bss.Keywords.Tokenizer;
+
+/**
+ * Holds statistics about the search-term dataset that do not change between calls to
+ * {@link KeywordGenerator#generate(bss.Keywords.Keyword)}.
+ * <p>
+ * The dataset is read once, each distinct token is given an integer term id and an inverted index from
+ * term ids to the documents containing them is built. Document frequencies, IDF scores and per-document
+ * TF-IDF vectors are computed for each minOrders/minCVR filter the first time it is used and reused afterwards. The statistics are rebuilt only when the search-term file is written
+ * again.
+ * </p>
+ * <p>
+ * Term ids are given in the order the tokens first appear in the dataset, and tokens added by a dictionary
+ * change get the next free ids. {@link SparseVector} sums dot products and norms in term-id order, so
+ * scores can differ in the last bits from those computed with another order, such as that of a fresh
+ * build after a dictionary change. Only matches whose scores tie exactly can change places.
+ * </p>
+ * <p>
+ * An instance is not changed once {@link #getInstance()} has returned it, so a generation can keep using it
+ * while the dictionary changes. When the dictionary changes, only the search terms whose tokens the changed
+ * entries and synonyms could match are retokenized, from their cached annotations, into copies. The copies
+ * and their term ids and postings go into new statistics that share everything else with the old ones.
+ * </p>
+ */
+public class CorpusStatistics {
+
+    /** Name of the file the search-term dataset is read from. */
+    static final String DATASET = "testData";
+
+    /** Singleton instance of the CorpusStatistics class. */
+    static CorpusStatistics instance = null;
+
+    /** Version of the search-term file these statistics were built from, or written to. */
+    int dataVersion;
+
+    /** Version of the dictionary the search terms were tokenized with. */
+    final int dictionaryVersion;
+
+    /** The search terms in the dataset, indexed by document id. */
+    final ArrayList<SearchTerm> searchTerms;
+
+    /** Maps each term in the dataset to its term id. */
+    final HashMap<String, Integer> termIds;
+
+    /** The distinct term ids of each document, indexed by document id. */
+    final int[][] documentTerms;
+
+    /** Inverted index from each term id to the ids of the documents containing it, in ascending order. Grown only while the statistics are built. */
+    int[][] postings;
+
+    /** Statistics for each minOrders/minCVR filter that has been requested. */
+    final HashMap<String, CorpusView> views;
+
+    /** Documents containing each token before or after synonym replacement, or null until the dictionary first changes. Handed on to the statistics that replace these. */
+    TokenOccurrenceIndex occurrences;
+
+    /**
+     * Reads the search-term dataset and assigns term ids to its tokens.
+     */
+    private CorpusStatistics() {
+        this.dataVersion = DataAccess.getVersion(DATASET);
+        this.dictionaryVersion = Categories.getVersion();
+
+        this.searchTerms = new ArrayList<>();
+        this.termIds = new HashMap<>();
+        this.views = new HashMap<>();
+
+        // term ids are assigned as the search terms are read, without holding the parsed file
+        ArrayList<int[]> termList = new ArrayList<>();
+        try (Stream<SearchTerm> kwStream = DataAccess.streamSearchTerms(DATASET)) {
+            Iterator<SearchTerm> kwIterator = kwStream.iterator();
+            while (kwIterator.hasNext()) {
+                SearchTerm kw = kwIterator.next();
+                this.searchTerms.add(kw);
+                List<String> tokens = kw.getTokens();
+                HashSet<Integer> uniqueTerms = new HashSet<>();
+                for (String token : tokens) {
+                    Integer termId = this.termIds.get(token);
+                    if (termId == null) {
+                        termId = this.termIds.size();
+                        this.termIds.put(token, termId);
+                    }
+                    uniqueTerms.add(termId);
+                }
+                int[] terms = new int[uniqueTerms.size()];
+                int i = 0;
+                for (int termId : uniqueTerms) {
+                    terms[i++] = termId;
+                }
+                termList.add(terms);
+            }
+        }
+        this.documentTerms = termList.toArray(new int[termList.size()][]);
+
+        int[] postingSizes = new int[this.termIds.size()];
+        for (int[] terms : this.documentTerms) {
+            for (int termId : terms) {
+                postingSizes[termId]++;
+            }
+        }
+        this.postings = new int[postingSizes.length][];
+        for (int termId = 0; termId < postingSizes.length; termId++) {
+            this.postings[termId] = new int[postingSizes[termId]];
+            postingSizes[termId] = 0;
+        }
+        for (int doc = 0; doc < this.documentTerms.length; doc++) {
+            for (int termId : this.documentTerms[doc]) {
+                this.postings[termId][postingSizes[termId]++] = doc;
+            }
+        }
+    }
+
+    /**
+     * Builds the statistics of the dataset after some of its search terms were retokenized, sharing the
+     * search terms, term ids and postings that did not change with the previous statistics.
+     *
+     * @param previous the statistics before the search terms were retokenized
+     * @param dictionaryVersion the version of the dictionary the search terms were retokenized with
+     * @param docs the ids of the retokenized documents
+     * @param retokenized the retokenized copies of the search terms, parallel to {@code docs}
+     */
+    private CorpusStatistics(CorpusStatistics previous, int dictionaryVersion, int[] docs, List<SearchTerm> retokenized) {
+        this.dataVersion = previous.dataVersion;
+        this.dictionaryVersion = dictionaryVersion;
+
+        this.searchTerms = new ArrayList<>(previous.searchTerms);
+        this.termIds = new HashMap<>(previous.termIds);
+        this.documentTerms = previous.documentTerms.clone();
+        this.postings = previous.postings.clone();
+        this.views = new HashMap<>();
+        this.occurrences = previous.occurrences;
+
+        for (int i = 0; i < docs.length; i++) {
+            this.searchTerms.set(docs[i], retokenized.get(i));
+            this.occurrences.add(docs[i], retokenized.get(i).getTokens());
+            updateDocumentTerms(docs[i]);
+        }
+    }
+
+    /**
+     * Gets the number of documents in the dataset.
+     *
+     * @return the number of search terms
+     */
+    public int size() {
+        return this.searchTerms.size();
+    }
+
+    /**
+     * Gets the search term with the given document id.
+     *
+     * @param doc the document id
+     * @return the search term
+     */
+    public SearchTerm getSearchTerm(int doc) {
+        return this.searchTerms.get(doc);
+    }
+
+    /**
+     * Gets the map from terms to term ids.
+     *
+     * @return the term ids of the dataset
+     */
+    public Map<String, Integer> getTermIds() {
+        return this.termIds;
+    }
+
+    /**
+     * Gets the ids of the documents containing a term.
+     *
+     * @param termId the term id
+     * @return the ids of the documents containing the term, in ascending order
+     */
+    public int[] getPostings(int termId) {
+        return this.postings[termId];
+    }
+
+    /**
+     * Gets the statistics for the documents that pass the given filter, computing them on first use.
+     *
+     * @param minOrders the minimum number of orders a search term needs
+     * @param minCVR the minimum conversion rate a search term needs
+     * @return the statistics for the filtered documents
+     */
+    public synchronized CorpusView getView(int minOrders, double minCVR) {
+        String key = minOrders + ":" + minCVR;
+        CorpusView view = this.views.get(key);
+        if (view == null) {
+            view = new CorpusView(this, minOrders, minCVR);
+            this.views.put(key, view);
+        }
+        return view;
+    }
+
+    /**
+     * Checks whether these statistics were built from the current dataset.
+     *
+     * @return true if the dataset has not been written since they were built
+     */
+    boolean isCurrent() {
+        return this.dataVersion == DataAccess.getVersion(DATASET);
+    }
+
+    /**
+     * Retokenizes the search terms affected by the dictionary changes made since they were last tokenized.
+     * <p>
+     * The affected search terms are tokenized again with the bulk profile, which reuses their cached
+     * annotations, so only synonym replacement and categorization are repeated. The retokenized copies go
+     * into new statistics, whose per-filter statistics are computed on first use. These statistics are not
+     * changed.
+     * </p>
+     *
+     * @return the statistics with the dictionary changes applied, or these statistics if the dictionary has
+     *         not changed
+     */
+    CorpusStatistics applyDictionaryChanges() {
+        int version = Categories.getVersion();
+        if (this.dictionaryVersion == version) {
+            return this;
+        }
+        ArrayList<String> changed = Categories.getChangesSince(this.dictionaryVersion);
+
+        AnnotationProfile previous = Tokenizer.useProfile(Tokenizer.getBulkProfile());
+        try {
+            if (this.occurrences == null) {
+                this.occurrences = new TokenOccurrenceIndex();
+                // annotate on the workers, the index itself is filled in on this thread
+                ArrayList<TokenList> rawTokens = BatchTokenizer.process(this.searchTerms.size(), new IntFunction<TokenList>() {
+                    @Override
+                    public TokenList apply(int doc) {
+                        return TokenList.extract(Tokenizer.annotate(searchTerms.get(doc).getKeyword()));
+                    }
+                });
+                for (int doc = 0; doc < rawTokens.size(); doc++) {
+                    this.occurrences.add(doc, rawTokens.get(doc));
+                    this.occurrences.add(doc, this.searchTerms.get(doc).getTokens());
+                }
+            }
+
+            BitSet affected;
+            if (changed != null) {
+                affected = this.occurrences.getAffected(changed);
+            }
+            else {
+                // the dictionary was read again, so any search term may be affected
+                affected = new BitSet(this.searchTerms.size());
+                affected.set(0, this.searchTerms.size());
+            }
+            int[] docs = affected.stream().toArray();
+            ArrayList<SearchTerm> retokenized = BatchTokenizer.process(docs.length, new IntFunction<SearchTerm>() {
+                @Override
+                public SearchTerm apply(int i) {
+                    return searchTerms.get(docs[i]).retokenized();
+                }
+            });
+            return new CorpusStatistics(this, version, docs, retokenized);
+        } finally {
+            Tokenizer.useProfile(previous);
+        }
+    }
+
+    /**
+     * Replaces the term ids of a document with those of its current tokens and updates the postings.
+     *
+     * @param doc the document id
+     */
+    void updateDocumentTerms(int doc) {
+        HashSet<Integer> oldTerms = new HashSet<>();
+        for (int termId : this.documentTerms[doc]) {
+            oldTerms.add(termId);
+        }
+
+        HashSet<Integer> newTerms = new HashSet<>();
+        for (String token : this.searchTerms.get(doc).getTokens()) {
+            Integer termId = this.termIds.get(token);
+            if (termId == null) {
+                termId = this.termIds.size();
+                this.termIds.put(token, termId);
+            }
+            newTerms.add(termId);
+        }
+        if (this.postings.length < this.termIds.size()) {
+            int oldLength = this.postings.length;
+            this.postings = Arrays.copyOf(this.postings, this.termIds.size());
+            for (int termId = oldLength; termId < this.postings.length; termId++) {
+                this.postings[termId] = new int[0];
+            }
+        }
+
+        for (int termId : oldTerms) {
+            if (!newTerms.contains(termId)) {
+                int[] posting = this.postings[termId];
+                int pos = Arrays.binarySearch(posting, doc);
+                int[] newPosting = new int[posting.length - 1];
+                System.arraycopy(posting, 0, newPosting, 0, pos);
+                System.arraycopy(posting, pos + 1, newPosting, pos, posting.length - pos - 1);
+                this.postings[termId] = newPosting;
+            }
+        }
+        for (int termId : newTerms) {
+            if (!oldTerms.contains(termId)) {
+                int[] posting = this.postings[termId];
+                int pos = -Arrays.binarySearch(posting, doc) - 1;
+                int[] newPosting = new int[posting.length + 1];
+                System.arraycopy(posting, 0, newPosting, 0, pos);
+                newPosting[pos] = doc;
+                System.arraycopy(posting, pos, newPosting, pos + 1, posting.length - pos);
+                this.postings[termId] = newPosting;
+            }
+        }
+
+        int[] terms = new int[newTerms.size()];
+        int i = 0;
+        for (int termId : newTerms) {
+            terms[i++] = termId;
+        }
+        this.documentTerms[doc] = terms;
+    }
+
+    /**
+     * Discards the current statistics so they are rebuilt on the next call to {@link #getInstance()}.
+     */
+    public static synchronized void invalidate() {
+        CorpusStatistics.instance = null;
+    }
+
+    /**
+     * Returns the statistics for the current dataset.
+     * <p>
+     * The statistics are rebuilt if the dataset has been written since they were last built. If the
+     * dictionary has changed, the affected search terms are retokenized into new statistics, which replace
+     * the current ones and are queued to be written back to the dataset in the background.
+     * </p>
+     *
+     * @return the singleton instance of CorpusStatistics
+     */
+    public static synchronized CorpusStatistics getInstance() {
+        if (CorpusStatistics.instance == null || !CorpusStatistics.instance.isCurrent()) {
+            CorpusStatistics.instance = new CorpusStatistics();
+        }
+        CorpusStatistics updated = CorpusStatistics.instance.applyDictionaryChanges();
+        if (updated != CorpusStatistics.instance) {
+            // the dataset is only written back if nothing else wrote it while the search terms were retokenized
+            if (CorpusStatistics.instance.isCurrent()) {
+                DataAccess.writeSearchTerms(DATASET, updated.searchTerms);
+                updated.dataVersion = DataAccess.getVersion(DATASET);
+            }
+            CorpusStatistics.instance = updated;
+        }
+        return CorpusStatistics.instance;
+    }
+}
@@ -0,0 +1,124 @@
+package bss.KeywordGeneration;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import bss.Keywords.SearchTerm;
+
+/**
+ * Statistics for the documents of a {@link CorpusStatistics} dataset that pass a minOrders/minCVR filter.
+ * <p>
+ * Holds the document frequency and IDF score of each term over the filtered documents, along with the
+ * unweighted TF-IDF vector (and therefore the norm) of each filtered document.
+ * </p>
+ */
+public class CorpusView {
+
+    /** The dataset these statistics were computed from. */
+    final CorpusStatistics corpus;
+
+    /** Document ids of the search terms that pass the filter, in dataset order. */
+    final int[] documents;
+
+    /** Number of filtered documents containing each term, indexed by term id. */
+    final int[] documentFrequency;
+
+    /** IDF score of each term over the filtered documents, indexed by term id. */
+    final double[] idf;
+
+    /** Unweighted TF-IDF vector of each document, indexed by document id, or null if it was filtered out. */
+    final SparseVector[] vectors;
+
+    /**
+     * Computes the statistics for the documents that pass the given filter.
+     *
+     * @param corpus the dataset to compute the statistics from
+     * @param minOrders the minimum number of orders a search term needs
+     * @param minCVR the minimum conversion rate a search term needs
+     */
+    CorpusView(CorpusStatistics corpus, int minOrders, double minCVR) {
+        this.corpus = corpus;
+
+        int count = 0;
+        int[] filtered = new int[corpus.size()];
+        for (int doc = 0; doc < corpus.size(); doc++) {
+            SearchTerm kw = corpus.getSearchTerm(doc);
+            if (kw.getOrders() >= minOrders && kw.getCVR() >= minCVR) {
+                filtered[count++] = doc;
+            }
+        }
+        this.documents = new int[count];
+        System.arraycopy(filtered, 0, this.documents, 0, count);
+
+        this.documentFrequency = new int[corpus.termIds.size()];
+        for (int doc : this.documents) {
+            for (int termId : corpus.documentTerms[doc]) {
+                this.documentFrequency[termId]++;
+            }
+        }
+
+        this.idf = new double[this.documentFrequency.length];
+        for (int termId = 0; termId < this.idf.length; termId++) {
+            if (this.documentFrequency[termId] > 0) {
+                this.idf[termId] = Math.log(count / (double) this.documentFrequency[termId]);
+            }
+        }
+
+        this.vectors = new SparseVector[corpus.size()];
+        for (int doc : this.documents) {
+            this.vectors[doc] = createTFIDFVector(corpus.getSearchTerm(doc).getTF());
+        }
+    }
+
+    /**
+     * Gets the document ids of the search terms that pass the filter.
+     *
+     * @return the filtered document ids, in dataset order
+     */
+    public int[] getDocuments() {
+        return this.documents;
+    }
+
+    /**
+     * Finds the filtered documents that share at least one term with a query vector.
+     * <p>
+     * Only the posting lists of the query's terms are visited, so the cost is proportional to the number
+     * of matching documents rather than the size of the dataset. Every other document has a cosine
+     * similarity of 0 with the query.
+     * </p>
+     *
+     * @param query the TF-IDF vector of the query
+     * @return the ids of the matching documents
+     */
+    public BitSet getCandidates(SparseVector query) {
+        BitSet candidates = new BitSet(this.corpus.size());
+        for (int termId : query.indices) {
+            for (int doc : this.corpus.getPostings(termId)) {
+                if (this.vectors[doc] != null) {
+                    candidates.set(doc);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the unweighted TF-IDF vector of a filtered document.
+     *
+     * @param doc the document id
+     * @return the TF-IDF vector of the document
+     */
+    public SparseVector getVector(int doc) {
+        return this.vectors[doc];
+    }
+
+    /**
+     * Creates a TF-IDF vector from term frequencies using the IDF scores of the filtered documents.
+     *
+     * @param tf a map where the keys are terms and the values are their term frequencies
+     * @return the TF-IDF vector
+     */
+    public SparseVector createTFIDFVector(Map<String, Double> tf) {
+        return CosineSimilarity.createTFIDFVector(tf, this.idf, this.corpus.termIds);
+    }
+}
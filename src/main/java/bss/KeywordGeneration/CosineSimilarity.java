@@ -6,9 +6,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.RealVector;
-
 /**
  * Provides methods for computing cosine similarity and related metrics.
  */
@@ -36,54 +33,43 @@ public class CosineSimilarity {
     }
 
     /**
-     * Creates a TF-IDF vector from term frequency (TF) and IDF scores.
+     * Creates a sparse TF-IDF vector from term frequency (TF) and IDF scores.
+     * <p>
+     * Only terms that are part of the vocabulary and have a non-zero TF-IDF value are stored.
+     * </p>
      * 
      * @param tf a map where the keys are terms and the values are their term frequencies
-     * @param idf a map where the keys are terms and the values are their inverse document frequencies
-     * @param vocabulary a set of all terms in the vocabulary
-     * @return a RealVector representing the TF-IDF vector
+     * @param idf the inverse document frequency of each term, indexed by term id
+     * @param termIds a map from each term in the vocabulary to its term id
+     * @return a SparseVector representing the TF-IDF vector
      */
-    public static RealVector createTFIDFVector(Map<String, Double> tf, Map<String, Double> idf, Set<String> vocabulary) {
-        //Map<String, Double> tfidf = new HashMap<>();
-        double[] tfidfValues = new double[vocabulary.size()];
-        int i = 0;
-        for (String term : vocabulary) {
-            double tfidf = tf.getOrDefault(term, 0.0) * idf.getOrDefault(term, 0.0);
+    public static SparseVector createTFIDFVector(Map<String, Double> tf, double[] idf, Map<String, Integer> termIds) {
+        int[] indices = new int[tf.size()];
+        double[] values = new double[tf.size()];
+        int size = 0;
+        for (Map.Entry<String, Double> entry : tf.entrySet()) {
+            Integer termId = termIds.get(entry.getKey());
+            if (termId == null) {
+                continue;
+            }
+            double tfidf = entry.getValue() * idf[termId];
             if (tfidf != 0.0) {
-                //System.out.println(term + "\t" + Double.toString(tfidf));
+                indices[size] = termId;
+                values[size] = tfidf;
+                size++;
             }
-            tfidfValues[i++] = tfidf;
         }
-        //KeywordGenerator.tfidf = new HashMap<>();
-        //for (String term : tf.keySet()) {
-        //    KeywordGenerator.tfidf.put(term, tf.get(term) * idf.getOrDefault(term, 0.0));
-        //}
-        //return new ArrayRealVector(tfidf.values().stream().mapToDouble(Double::doubleValue).toArray());
-
-        return new ArrayRealVector(tfidfValues);
+        return new SparseVector(indices, values, size);
     }
 
     /**
      * Computes the cosine similarity between two vectors.
-     * <p>
-     * The vectors are padded with zeros if they have different dimensions.
-     * </p>
      * 
      * @param v1 the first vector
      * @param v2 the second vector
      * @return the cosine similarity between the two vectors, or 0 if the similarity is NaN
      */
-    public static double computeCosineSimilarity(RealVector v1, RealVector v2) {
-        if (v1.getDimension() < v2.getDimension()) {
-            while (v1.getDimension() < v2.getDimension()) {
-                v1 = v1.append(0.0);
-            }
-        }
-        else if (v1.getDimension() > v2.getDimension()) {
-            while (v1.getDimension() > v2.getDimension()) {
-                v2 = v2.append(0.0);
-            }
-        }
+    public static double computeCosineSimilarity(SparseVector v1, SparseVector v2) {
         double cosineSimilarity = v1.dotProduct(v2) / (v1.getNorm() * v2.getNorm());
         if (Double.isNaN(cosineSimilarity)) {
             return 0;
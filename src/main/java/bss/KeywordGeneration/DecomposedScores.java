@@ -0,0 +1,349 @@
+package bss.KeywordGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import bss.Keywords.Categories;
+import bss.Keywords.Keyword;
+import bss.Keywords.KeywordMatch;
+import bss.Keywords.SearchTerm;
+
+/**
+ * The candidates of a keyword generation with their TF-IDF vectors split by weight, so that they can be
+ * ranked again for new weights without scoring them from scratch.
+ * <p>
+ * {@link KeywordMatch#weightTF(HashMap, HashMap)} lowers the term frequency of each token that does not
+ * match the keyword by the weight of its category, or by the largest attribute weight for attributes, so a
+ * candidate's vector is a fixed base vector plus one vector per weighted category (and one for the
+ * attributes) scaled by its weight. Each part is found once by weighting the candidate with all weights at 0
+ * and then with one weight at a time at 1. Ranking for new weights then only adds up the parts and computes
+ * the cosine similarity with the keyword redistributed for those weights.
+ * </p>
+ * <p>
+ * The parts are only valid for the keyword values and for the categories and attributes the generation was
+ * weighted by; new weights may change their values but not which categories and attributes are weighted,
+ * and a keyword with different values must be generated again.
+ * </p>
+ */
+public class DecomposedScores {
+
+    /** The dataset the candidates come from. */
+    final CorpusStatistics corpus;
+
+    /** Statistics for the filtered documents the candidates were scored with. */
+    final CorpusView view;
+
+    /** The keyword the candidates are matched against. */
+    final Keyword keyword;
+
+    /** The categorized tokens of the keyword when the candidates were decomposed. */
+    final LinkedHashMap<Categories, ArrayList<String>> keywordValues;
+
+    /** Document ids of the candidates, in dataset order. */
+    final int[] candidates;
+
+    /** The weighted categories, in the order of their weight slots. */
+    final Categories[] categories;
+
+    /** The weighted attributes, with the weights they were decomposed with. */
+    final HashMap<String, Double> attributes;
+
+    /** Number of weight slots: one per weighted category, plus one for the attributes if there are any. */
+    final int slots;
+
+    /** Start of each candidate's entries in {@code termIds} and {@code base}, with one extra end offset. */
+    final int[] entryOffsets;
+
+    /** Term ids of the entries of each candidate. */
+    final int[] termIds;
+
+    /** TF-IDF value of each entry with every weight at 0. */
+    final double[] base;
+
+    /** Start of each candidate's coefficients, with one extra end offset. */
+    final int[] coefficientOffsets;
+
+    /** The entry each coefficient changes. */
+    final int[] coefficientEntries;
+
+    /** The weight slot of each coefficient. */
+    final int[] coefficientSlots;
+
+    /** Change of the TF-IDF value of the entry per unit of weight. */
+    final double[] coefficients;
+
+    /**
+     * Decomposes the candidates of a scorer.
+     *
+     * @param scorer the scorer holding the candidates, keyword and weights of a generation
+     * @param progress the progress of the generation, checked between candidates
+     * @throws java.util.concurrent.CancellationException if the generation is cancelled
+     */
+    DecomposedScores(ParallelScorer scorer, GenerationProgress progress) {
+        this.corpus = scorer.corpus;
+        this.view = scorer.view;
+        this.keyword = scorer.keyword;
+        this.keywordValues = new LinkedHashMap<>();
+        for (Map.Entry<Categories, List<String>> entry : this.keyword.getCategorizedTokens().entrySet()) {
+            this.keywordValues.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        this.candidates = scorer.candidates;
+
+        HashMap<Categories, Double> categoryWeights = scorer.categoryWeights != null ? scorer.categoryWeights : new HashMap<Categories, Double>();
+        this.attributes = scorer.attributeWeights != null ? new HashMap<>(scorer.attributeWeights) : new HashMap<String, Double>();
+        this.categories = categoryWeights.keySet().toArray(new Categories[categoryWeights.size()]);
+        this.slots = this.categories.length + (this.attributes.isEmpty() ? 0 : 1);
+
+        // one set of weights with everything at 0, then one per slot with that slot at 1
+        ArrayList<HashMap<Categories, Double>> probeCategories = new ArrayList<>();
+        ArrayList<HashMap<String, Double>> probeAttributes = new ArrayList<>();
+        for (int probe = 0; probe <= this.slots; probe++) {
+            double[] weights = new double[this.slots];
+            if (probe > 0) {
+                weights[probe - 1] = 1;
+            }
+            probeCategories.add(getCategoryWeights(weights));
+            probeAttributes.add(getAttributeWeights(weights));
+        }
+
+        this.entryOffsets = new int[this.candidates.length + 1];
+        this.coefficientOffsets = new int[this.candidates.length + 1];
+        int[] termIdList = new int[16];
+        double[] baseList = new double[16];
+        int entries = 0;
+        int[] entryList = new int[16];
+        int[] slotList = new int[16];
+        double[] coefficientList = new double[16];
+        int coefficientCount = 0;
+        for (int i = 0; i < this.candidates.length; i++) {
+            progress.checkCancelled();
+            SearchTerm searchTerm = this.corpus.getSearchTerm(this.candidates[i]);
+            KeywordMatch zero = new KeywordMatch(searchTerm, this.keyword);
+            zero.weightTF(probeCategories.get(0), probeAttributes.get(0));
+            Map<String, Double> baseTF = zero.getTF();
+
+            HashMap<String, Integer> entryOfToken = new HashMap<>();
+            for (Map.Entry<String, Double> tf : baseTF.entrySet()) {
+                Integer termId = this.corpus.termIds.get(tf.getKey());
+                if (termId == null) {
+                    continue;
+                }
+                if (entries == termIdList.length) {
+                    termIdList = Arrays.copyOf(termIdList, entries * 2);
+                    baseList = Arrays.copyOf(baseList, entries * 2);
+                }
+                entryOfToken.put(tf.getKey(), entries);
+                termIdList[entries] = termId;
+                baseList[entries] = tf.getValue() * this.view.idf[termId];
+                entries++;
+            }
+
+            for (int slot = 0; slot < this.slots; slot++) {
+                KeywordMatch unit = new KeywordMatch(searchTerm, this.keyword);
+                unit.weightTF(probeCategories.get(slot + 1), probeAttributes.get(slot + 1));
+                for (Map.Entry<String, Double> tf : unit.getTF().entrySet()) {
+                    Integer entry = entryOfToken.get(tf.getKey());
+                    double change = tf.getValue() - baseTF.get(tf.getKey());
+                    if (entry == null || change == 0) {
+                        continue;
+                    }
+                    if (coefficientCount == entryList.length) {
+                        entryList = Arrays.copyOf(entryList, coefficientCount * 2);
+                        slotList = Arrays.copyOf(slotList, coefficientCount * 2);
+                        coefficientList = Arrays.copyOf(coefficientList, coefficientCount * 2);
+                    }
+                    entryList[coefficientCount] = entry;
+                    slotList[coefficientCount] = slot;
+                    coefficientList[coefficientCount] = change * this.view.idf[termIdList[entry]];
+                    coefficientCount++;
+                }
+            }
+            this.entryOffsets[i + 1] = entries;
+            this.coefficientOffsets[i + 1] = coefficientCount;
+        }
+        this.termIds = Arrays.copyOf(termIdList, entries);
+        this.base = Arrays.copyOf(baseList, entries);
+        this.coefficientEntries = Arrays.copyOf(entryList, coefficientCount);
+        this.coefficientSlots = Arrays.copyOf(slotList, coefficientCount);
+        this.coefficients = Arrays.copyOf(coefficientList, coefficientCount);
+    }
+
+    /**
+     * Gets the number of candidates.
+     *
+     * @return the number of candidates
+     */
+    public int size() {
+        return this.candidates.length;
+    }
+
+    /**
+     * Checks whether the candidates can be ranked for a keyword and weights, which is the case when the
+     * keyword has the same categorized tokens as the generation's and the weights weight the same categories
+     * and attributes.
+     *
+     * @param keyword the keyword to match against
+     * @param categoryWeights the weights of the categories
+     * @param attributeWeights the weights of the attributes
+     * @return true if {@link #rank(Keyword, HashMap, HashMap, int)} can use the keyword and weights
+     */
+    public boolean accepts(Keyword keyword, HashMap<Categories, Double> categoryWeights, HashMap<String, Double> attributeWeights) {
+        return keyword.getCategorizedTokens().equals(this.keywordValues)
+                && categoryWeights.size() == this.categories.length && categoryWeights.keySet().containsAll(Arrays.asList(this.categories))
+                && attributeWeights.keySet().equals(this.attributes.keySet());
+    }
+
+    /**
+     * Ranks the candidates again for new weights.
+     * <p>
+     * The result is the same as generating with the new weights, up to rounding in the last digits of the
+     * scores.
+     * </p>
+     *
+     * @param keyword the keyword to match against, with the same categorized tokens as the generation's
+     * @param categoryWeights the new weights of the categories
+     * @param attributeWeights the new weights of the attributes
+     * @param k the maximum number of matches to return
+     * @return the best {@code k} matches in ranked order, or null if the keyword has different values or the
+     *         weights do not weight the same categories and attributes as the generation
+     */
+    public synchronized ArrayList<KeywordMatch> rank(Keyword keyword, HashMap<Categories, Double> categoryWeights, HashMap<String, Double> attributeWeights, int k) {
+        if (!accepts(keyword, categoryWeights, attributeWeights)) {
+            return null;
+        }
+        double[] weights = new double[this.slots];
+        for (int slot = 0; slot < this.categories.length; slot++) {
+            weights[slot] = categoryWeights.get(this.categories[slot]);
+        }
+        if (!this.attributes.isEmpty()) {
+            // weightTF lowers attributes that do not match by the largest attribute weight
+            double biggestWeight = 0;
+            for (double weight : attributeWeights.values()) {
+                if (weight > biggestWeight) {
+                    biggestWeight = weight;
+                }
+            }
+            weights[this.categories.length] = biggestWeight;
+        }
+
+        // redistribute a copy, since the keyword is shared with the generation and earlier rankings
+        Keyword redistributed = new KeywordMatch(this.keyword, 0);
+        KeywordGenerator.redistributeKeyword(redistributed, categoryWeights, attributeWeights);
+        SparseVector keywordVector = this.view.createTFIDFVector(redistributed.getTF());
+
+        double[] scores = new double[this.candidates.length];
+        double[] values = new double[16];
+        for (int i = 0; i < this.candidates.length; i++) {
+            int from = this.entryOffsets[i];
+            int size = this.entryOffsets[i + 1] - from;
+            if (size > values.length) {
+                values = new double[size];
+            }
+            System.arraycopy(this.base, from, values, 0, size);
+            for (int c = this.coefficientOffsets[i]; c < this.coefficientOffsets[i + 1]; c++) {
+                values[this.coefficientEntries[c] - from] += weights[this.coefficientSlots[c]] * this.coefficients[c];
+            }
+
+            double dot = 0;
+            double sum = 0;
+            for (int e = 0; e < size; e++) {
+                sum += values[e] * values[e];
+                int position = Arrays.binarySearch(keywordVector.indices, this.termIds[from + e]);
+                if (position >= 0) {
+                    dot += values[e] * keywordVector.values[position];
+                }
+            }
+            double score = dot / (Math.sqrt(sum) * keywordVector.getNorm());
+            scores[i] = Double.isNaN(score) ? 0 : score;
+        }
+
+        ArrayList<KeywordMatch> ranked = new ArrayList<>();
+        for (int i : rankTop(scores, k)) {
+            KeywordMatch kwMatch = new KeywordMatch(this.corpus.getSearchTerm(this.candidates[i]), this.keyword);
+            kwMatch.weightTF(categoryWeights, attributeWeights);
+            kwMatch.setScore(scores[i]);
+            ranked.add(kwMatch);
+        }
+        return ranked;
+    }
+
+    /**
+     * Finds the best {@code k} candidates with a bounded heap.
+     * <p>
+     * Candidates are ordered like {@link RankedMatches}: by score, then orders, then CVR, all descending, with
+     * ties broken by their position in the dataset.
+     * </p>
+     *
+     * @param scores the score of each candidate
+     * @param k the number of candidates to keep
+     * @return the positions of the best candidates, in ranked order
+     */
+    int[] rankTop(double[] scores, int k) {
+        Comparator<Integer> byRank = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i, Integer j) {
+                int c = Double.compare(scores[j], scores[i]);
+                if (c == 0) {
+                    SearchTerm kw1 = corpus.getSearchTerm(candidates[i]);
+                    SearchTerm kw2 = corpus.getSearchTerm(candidates[j]);
+                    c = Integer.compare(kw2.getOrders(), kw1.getOrders());
+                    if (c == 0) {
+                        c = Double.compare(kw2.getCVR(), kw1.getCVR());
+                    }
+                }
+                return c != 0 ? c : Integer.compare(i, j);
+            }
+        };
+        // the head of the heap is the worst of the best k candidates seen so far
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(k, 1), byRank.reversed());
+        for (int i = 0; i < scores.length && k > 0; i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            }
+            else if (byRank.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+
+    /**
+     * Gets the category weights for a set of slot weights.
+     *
+     * @param weights the weight of each slot
+     * @return the weights of the weighted categories
+     */
+    HashMap<Categories, Double> getCategoryWeights(double[] weights) {
+        HashMap<Categories, Double> categoryWeights = new HashMap<>();
+        for (int slot = 0; slot < this.categories.length; slot++) {
+            categoryWeights.put(this.categories[slot], weights[slot]);
+        }
+        return categoryWeights;
+    }
+
+    /**
+     * Gets the attribute weights for a set of slot weights, giving every weighted attribute the weight of
+     * the attribute slot.
+     *
+     * @param weights the weight of each slot
+     * @return the weights of the weighted attributes
+     */
+    HashMap<String, Double> getAttributeWeights(double[] weights) {
+        HashMap<String, Double> attributeWeights = new HashMap<>();
+        for (String attribute : this.attributes.keySet()) {
+            attributeWeights.put(attribute, weights[this.categories.length]);
+        }
+        return attributeWeights;
+    }
+}
@@ -0,0 +1,77 @@
+package bss.KeywordGeneration;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks how many candidates a keyword generation has scored and lets another thread cancel it.
+ * <p>
+ * Cancellation is cooperative: the scoring threads check {@link #isCancelled()} between candidates and
+ * stop by throwing a {@link CancellationException}, which the generation passes on to its caller.
+ * </p>
+ */
+public class GenerationProgress {
+
+    /** Whether the generation has been cancelled. */
+    volatile boolean cancelled;
+
+    /** Number of candidates to score, or 0 until they are known. */
+    volatile int total;
+
+    /** Number of candidates scored so far. */
+    final AtomicInteger scored;
+
+    /**
+     * Constructs a GenerationProgress for a generation that has not started.
+     */
+    public GenerationProgress() {
+        this.cancelled = false;
+        this.total = 0;
+        this.scored = new AtomicInteger();
+    }
+
+    /**
+     * Asks the generation to stop. It stops once each scoring thread finishes its current candidate.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Checks whether the generation has been cancelled.
+     *
+     * @return true if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Stops the calling generation thread if the generation has been cancelled.
+     *
+     * @throws CancellationException if the generation has been cancelled
+     */
+    void checkCancelled() {
+        if (this.cancelled) {
+            throw new CancellationException("generation cancelled");
+        }
+    }
+
+    /**
+     * Gets the number of candidates to score.
+     *
+     * @return the number of candidates, or 0 if they are not known yet
+     */
+    public int getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Gets the number of candidates scored so far.
+     *
+     * @return the number of scored candidates
+     */
+    public int getScored() {
+        return this.scored.get();
+    }
+}
@@ -1,22 +1,13 @@
 package bss.KeywordGeneration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import org.apache.commons.math3.linear.RealVector;
-
-import bss.Data.DataAccess;
 import bss.Keywords.Keyword;
-import bss.Keywords.KeywordDictionary;
 import bss.Keywords.Categories;
 import bss.Keywords.KeywordMatch;
-import bss.Keywords.SearchTerm;
 
 /**
  * Generates a sorted list of keywords based on relevance to a given input keyword or attribute set.
@@ -42,6 +33,22 @@ public class KeywordGenerator {
     /** Minimum conversion rate (CVR) required for a keyword to be considered. */
     public static double minCVR = 0;
 
+    /** Time between the snapshots published by a streaming generation, in milliseconds. */
+    public static final long SNAPSHOT_INTERVAL = 200;
+
+    /**
+     * Receives the best matches found so far by a streaming generation.
+     */
+    public interface SnapshotListener {
+
+        /**
+         * Called with the best matches among the candidates scored so far.
+         *
+         * @param matches the matches, in ranked order
+         */
+        void snapshot(ArrayList<KeywordMatch> matches);
+    }
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -128,19 +135,21 @@ public class KeywordGenerator {
      * Redistributes the tokens of a keyword based on category and attribute weights.
      * 
      * @param keyword the keyword to redistribute
+     * @param categoryWeights the weights of the categories
+     * @param attributeWeights the weights of the attributes
      */
-    private static void redistributeKeyword(Keyword keyword) {
+    static void redistributeKeyword(Keyword keyword, HashMap<Categories, Double> categoryWeights, HashMap<String, Double> attributeWeights) {
         ArrayList<String> redistributedTokens = new ArrayList<>();
         for (Categories c : categoryWeights.keySet()) {
-            for (int i = 0; i <= KeywordGenerator.categoryWeights.get(c) * 100; i++) {
+            for (int i = 0; i <= categoryWeights.get(c) * 100; i++) {
                 redistributedTokens.add(keyword.getCategorizedTokens().get(c).get(0));
             }
         }
 
         if (!attributeWeights.isEmpty()) {
             for (String token : keyword.getCategorizedTokens().get(Categories.ATTRIBUTES)) {
-                if (KeywordGenerator.attributeWeights.containsKey(token)) {
-                    for (int i = 0; i <= KeywordGenerator.attributeWeights.get(token) * 100; i++) {
+                if (attributeWeights.containsKey(token)) {
+                    for (int i = 0; i <= attributeWeights.get(token) * 100; i++) {
                         redistributedTokens.add(token);
                     }
                 }
@@ -154,89 +163,141 @@ public class KeywordGenerator {
     }
 
     /**
-     * Generates a sorted list of keyword matches based on the relevance to the given keyword.
+     * Prepares a parallel scorer for the search terms that can match the given keyword.
+     * <p>
+     * Only search terms that share at least one weighted token with the keyword are candidates;
+     * all other search terms would have a score of 0.
+     * </p>
      * 
      * @param keyword the input keyword to match against
-     * @return a sorted list of {@link KeywordMatch} objects
+     * @param progress the progress of the generation
+     * @return a scorer for the candidate search terms
+     * @throws java.util.concurrent.CancellationException if the generation is cancelled
      */
-    public static ArrayList<KeywordMatch> generate(Keyword keyword) {
-        ArrayList<SearchTerm> kwList = DataAccess.getSearchTermList("testData");
-        redistributeKeyword(keyword);
-
-        ArrayList<KeywordMatch> matchedList = new ArrayList<>();
-        List<List<String>> totalTokens = new ArrayList<>();
-        for (SearchTerm kw : kwList) {
-            if (kw.getOrders() >= KeywordGenerator.minOrders && kw.getCVR() >= KeywordGenerator.minCVR) {
-                //kw.tokenize();
-                //kw.computeTF();
-                totalTokens.add(kw.getTokens());
-                // KeywordDictionary.getInstance().checkTokens(kw);
-                KeywordMatch kwMatch = new KeywordMatch(kw, keyword);
-                kwMatch.weightTF(KeywordGenerator.categoryWeights, KeywordGenerator.attributeWeights);
-                matchedList.add(kwMatch);
-                //break;
-            }
-        }
-        kwList.clear();
-        //DataAccess.writeToJson("keywordList", kwList);
-
-        Map<String, Double> idf = CosineSimilarity.computeIDF(totalTokens);
-        //System.out.println(idf.keySet());
+    private static ParallelScorer createScorer(Keyword keyword, GenerationProgress progress) {
+        CorpusStatistics corpus = CorpusStatistics.getInstance();
+        CorpusView view = corpus.getView(KeywordGenerator.minOrders, KeywordGenerator.minCVR);
+        progress.checkCancelled();
+        redistributeKeyword(keyword, KeywordGenerator.categoryWeights, KeywordGenerator.attributeWeights);
+
+        SparseVector keywordVector = view.createTFIDFVector(keyword.getTF());
+        return new ParallelScorer(corpus, view, keyword, keywordVector, view.getCandidates(keywordVector), progress);
+    }
 
-        Set<String> vocabulary = new HashSet<>();
-        for (List<String> tokens : totalTokens) {
-            vocabulary.addAll(tokens);
-        }
-        vocabulary.addAll(keyword.getTokens());
+    /**
+     * Scores the search terms against the given keyword.
+     * <p>
+     * The matches are ranked lazily, one page at a time.
+     * </p>
+     * 
+     * @param keyword the input keyword to match against
+     * @return the scored {@link KeywordMatch} objects
+     */
+    public static RankedMatches rank(Keyword keyword) {
+        KeywordMatch[] matches = KeywordGenerator.createScorer(keyword, new GenerationProgress()).scoreAll();
+        System.out.println("generation done");
+        return new RankedMatches(Arrays.asList(matches));
+    }
 
-        // HashMap<KeywordMatch, RealVector> vectors = new HashMap<>();
-        RealVector keywordVector = CosineSimilarity.createTFIDFVector(keyword.getTF(), idf, vocabulary);
-        for (KeywordMatch kw : matchedList) {
-            //System.out.println(kw.getKeyword());
-            RealVector vector = CosineSimilarity.createTFIDFVector(kw.getTF(), idf, vocabulary);
-            // vectors.put(kw, vector);
+    /**
+     * Decomposes the scores of the search terms that can match the given keyword by category and attribute
+     * weight, so that they can be ranked again when only the values of the weights change.
+     * <p>
+     * Meant to run on a background thread after a generation with the same keyword and weights.
+     * </p>
+     * 
+     * @param keyword the input keyword to match against
+     * @param progress the progress of the decomposition
+     * @return the decomposed scores of the candidate search terms
+     * @throws java.util.concurrent.CancellationException if the decomposition is cancelled
+     */
+    public static DecomposedScores decompose(Keyword keyword, GenerationProgress progress) {
+        return new DecomposedScores(KeywordGenerator.createScorer(keyword, progress), progress);
+    }
 
-            if (kw == matchedList.get(0)) {
-                //System.out.println(KeywordGenerator.tfidf);
-            }
+    /**
+     * Generates one page of the keyword matches most relevant to the given keyword.
+     * <p>
+     * Each scoring thread only keeps its best {@code offset + k} matches, so the full list is never sorted.
+     * </p>
+     * 
+     * @param keyword the input keyword to match against
+     * @param k the maximum number of matches to return
+     * @param offset the rank of the first match to return
+     * @return a sorted list of at most {@code k} {@link KeywordMatch} objects
+     */
+    public static ArrayList<KeywordMatch> generate(Keyword keyword, int k, int offset) {
+        return KeywordGenerator.generate(keyword, k, offset, new GenerationProgress());
+    }
 
-            double cs = CosineSimilarity.computeCosineSimilarity(vector, keywordVector);
-            kw.setScore(cs);
-            //break;
-        }
+    /**
+     * Generates one page of the keyword matches most relevant to the given keyword, reporting progress.
+     * <p>
+     * Meant to run on a background thread. Another thread can stop it through {@code progress}.
+     * </p>
+     * 
+     * @param keyword the input keyword to match against
+     * @param k the maximum number of matches to return
+     * @param offset the rank of the first match to return
+     * @param progress the progress of the generation
+     * @return a sorted list of at most {@code k} {@link KeywordMatch} objects
+     * @throws java.util.concurrent.CancellationException if the generation is cancelled
+     */
+    public static ArrayList<KeywordMatch> generate(Keyword keyword, int k, int offset, GenerationProgress progress) {
+        ArrayList<KeywordMatch> top = KeywordGenerator.createScorer(keyword, progress).scoreTop((int) Math.min((long) offset + k, Integer.MAX_VALUE));
+        System.out.println("generation done");
+        return new ArrayList<>(top.subList(Math.min(offset, top.size()), top.size()));
+    }
 
-        // RealVector keywordVector = CosineSimilarity.createTFIDFVector(keyword.getTF(), idf, vocabulary);
-        //System.out.println(KeywordGenerator.tfidf);
-        
-        // for (KeywordMatch kw : matchedList) {
-        //     double cs = CosineSimilarity.computeCosineSimilarity(vectors.get(kw), keywordVector);
-        //     kw.setScore(cs);
-        // }
-
-        //System.out.println(matchedList.get(0).keyword);
-        //System.out.println(kwList.get(0).getTokens());
-        //System.out.println(kwList.get(0).tf);
-        //System.out.println(vectors.get(0));
-        //System.out.println(matchedList.get(0).score);
-        
-        KeywordGenerator.sortByScore(matchedList);
+    /**
+     * Generates one page of the keyword matches most relevant to the given keyword, publishing the best
+     * matches found so far every {@link #SNAPSHOT_INTERVAL} milliseconds while scoring continues.
+     * <p>
+     * The listener is called on the calling thread with pages of the same shape as the result, built from
+     * the candidates scored so far. It is not called with the final page, which is returned.
+     * </p>
+     * 
+     * @param keyword the input keyword to match against
+     * @param k the maximum number of matches to return
+     * @param offset the rank of the first match to return
+     * @param progress the progress of the generation
+     * @param listener receives the intermediate pages
+     * @return a sorted list of at most {@code k} {@link KeywordMatch} objects
+     * @throws java.util.concurrent.CancellationException if the generation is cancelled
+     */
+    public static ArrayList<KeywordMatch> generate(Keyword keyword, int k, int offset, GenerationProgress progress, SnapshotListener listener) {
+        ArrayList<KeywordMatch> top = KeywordGenerator.createScorer(keyword, progress).scoreTop((int) Math.min((long) offset + k, Integer.MAX_VALUE), KeywordGenerator.SNAPSHOT_INTERVAL, new SnapshotListener() {
+            @Override
+            public void snapshot(ArrayList<KeywordMatch> matches) {
+                listener.snapshot(new ArrayList<>(matches.subList(Math.min(offset, matches.size()), matches.size())));
+            }
+        });
         System.out.println("generation done");
+        return new ArrayList<>(top.subList(Math.min(offset, top.size()), top.size()));
+    }
 
-        return matchedList;
+    /**
+     * Generates a sorted list of keyword matches based on the relevance to the given keyword.
+     * 
+     * @param keyword the input keyword to match against
+     * @return a sorted list of {@link KeywordMatch} objects
+     */
+    public static ArrayList<KeywordMatch> generate(Keyword keyword) {
+        RankedMatches matches = KeywordGenerator.rank(keyword);
+        return matches.getPage(0, matches.size());
     }
 
     /**
-     * Sorts a list of keyword matches by their relevance score in descending order.
+     * Sorts a list of keyword matches by their relevance in descending order.
+     * <p>
+     * Matches are ordered by score, then orders, then CVR. The sort is stable, so matches that are equal on
+     * all three keep their original order.
+     * </p>
      * 
      * @param matchedList the list of {@link KeywordMatch} objects to sort
      */
     public static void sortByScore(ArrayList<KeywordMatch> matchedList) {
-        Collections.sort(matchedList, new Comparator<KeywordMatch>() {
-            @Override
-            public int compare(KeywordMatch kw1, KeywordMatch kw2) {
-                return (int) (10000 * (kw2.getScore() - kw1.getScore()));
-            }
-        });
+        Collections.sort(matchedList, RankedMatches.BY_RELEVANCE);
     }
 
     /**
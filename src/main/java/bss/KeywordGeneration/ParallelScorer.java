@@ -0,0 +1,431 @@
+package bss.KeywordGeneration;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import bss.Keywords.Categories;
+import bss.Keywords.Keyword;
+import bss.Keywords.KeywordMatch;
+
+/**
+ * Scores the candidate search terms of a keyword on a fork-join pool.
+ * <p>
+ * The candidates are split into ranges that are scored in parallel. Each match is written to its own
+ * slot, so the scores do not depend on which thread computed them. When only the best matches are
+ * needed, each range keeps its own bounded top-K buffer and the buffers are merged as the tasks join.
+ * Ties are broken by dataset position, so the result is the same as scoring on a single thread.
+ * </p>
+ * <p>
+ * The scoring threads check the {@link GenerationProgress} between candidates, so a cancelled generation
+ * stops within one candidate per thread.
+ * </p>
+ * <p>
+ * When the best matches are streamed, each range also merges its buffer into a shared running top-K as soon
+ * as it is scored, and the calling thread publishes that running top-K at a fixed interval until scoring ends.
+ * </p>
+ */
+public class ParallelScorer {
+
+    /** Number of candidates below which a range is scored on the current thread. */
+    static final int SPLIT_THRESHOLD = 256;
+
+    /** Number of threads used to score candidates. */
+    static int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Pool the scoring tasks run on, created on first use. */
+    static ForkJoinPool pool = null;
+
+    /** Number of scorers running on each pool, including pools that have been replaced. */
+    static final HashMap<ForkJoinPool, Integer> poolUsers = new HashMap<>();
+
+    /** The dataset being scored. */
+    final CorpusStatistics corpus;
+
+    /** Statistics for the filtered documents being scored. */
+    final CorpusView view;
+
+    /** The keyword to match against. */
+    final Keyword keyword;
+
+    /** The TF-IDF vector of the keyword. */
+    final SparseVector keywordVector;
+
+    /** Document ids of the candidates, in dataset order. */
+    final int[] candidates;
+
+    /** The scored match of each candidate, parallel to {@code candidates}. */
+    final KeywordMatch[] matches;
+
+    /** Weights of the categories, copied so that the settings can change while scoring runs. */
+    final HashMap<Categories, Double> categoryWeights;
+
+    /** Weights of the attributes, copied so that the settings can change while scoring runs. */
+    final HashMap<String, Double> attributeWeights;
+
+    /** Progress of the generation, which also tells the scoring threads when to stop. */
+    final GenerationProgress progress;
+
+    /** Number of matches kept in the running top-K, or 0 when the best matches are not streamed. */
+    int runningK;
+
+    /** Positions of the best matches in the ranges scored so far, in ranked order. */
+    int[] running;
+
+    /** Number of times the running top-K has changed. */
+    int runningVersion;
+
+    /**
+     * Constructs a ParallelScorer for a keyword and its candidate documents.
+     *
+     * @param corpus the dataset being scored
+     * @param view statistics for the filtered documents
+     * @param keyword the keyword to match against
+     * @param keywordVector the TF-IDF vector of the keyword
+     * @param candidates the ids of the documents to score
+     */
+    public ParallelScorer(CorpusStatistics corpus, CorpusView view, Keyword keyword, SparseVector keywordVector, BitSet candidates) {
+        this(corpus, view, keyword, keywordVector, candidates, new GenerationProgress());
+    }
+
+    /**
+     * Constructs a ParallelScorer that reports its progress and can be cancelled.
+     *
+     * @param corpus the dataset being scored
+     * @param view statistics for the filtered documents
+     * @param keyword the keyword to match against
+     * @param keywordVector the TF-IDF vector of the keyword
+     * @param candidates the ids of the documents to score
+     * @param progress the progress of the generation
+     */
+    public ParallelScorer(CorpusStatistics corpus, CorpusView view, Keyword keyword, SparseVector keywordVector, BitSet candidates, GenerationProgress progress) {
+        this.corpus = corpus;
+        this.view = view;
+        this.keyword = keyword;
+        this.keywordVector = keywordVector;
+        this.candidates = new int[candidates.cardinality()];
+        int i = 0;
+        for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+            this.candidates[i++] = doc;
+        }
+        this.matches = new KeywordMatch[this.candidates.length];
+        this.categoryWeights = KeywordGenerator.categoryWeights != null ? new HashMap<>(KeywordGenerator.categoryWeights) : null;
+        this.attributeWeights = KeywordGenerator.attributeWeights != null ? new HashMap<>(KeywordGenerator.attributeWeights) : null;
+        this.progress = progress;
+        this.progress.total = this.candidates.length;
+        this.runningK = 0;
+        this.running = new int[0];
+        this.runningVersion = 0;
+    }
+
+    /**
+     * Scores every candidate.
+     *
+     * @return the scored matches, in dataset order
+     * @throws java.util.concurrent.CancellationException if the generation is cancelled
+     */
+    public KeywordMatch[] scoreAll() {
+        ForkJoinPool scoringPool = ParallelScorer.acquirePool();
+        try {
+            scoringPool.invoke(new ScoringTask(0, this.candidates.length, 0));
+        } finally {
+            ParallelScorer.releasePool(scoringPool);
+        }
+        return this.matches;
+    }
+
+    /**
+     * Scores every candidate and keeps the best {@code k}.
+     *
+     * @param k the number of matches to keep
+     * @return the best {@code k} matches, in ranked order
+     * @throws java.util.concurrent.CancellationException if the generation is cancelled
+     */
+    public ArrayList<KeywordMatch> scoreTop(int k) {
+        ForkJoinPool scoringPool = ParallelScorer.acquirePool();
+        try {
+            return toMatches(scoringPool.invoke(new ScoringTask(0, this.candidates.length, Math.max(k, 0))));
+        } finally {
+            ParallelScorer.releasePool(scoringPool);
+        }
+    }
+
+    /**
+     * Scores every candidate and keeps the best {@code k}, publishing the best matches found so far while
+     * scoring runs.
+     * <p>
+     * Scoring runs on the pool while the calling thread publishes a snapshot every {@code interval}
+     * milliseconds, skipping snapshots that have not changed since the last one. The listener is called on
+     * the calling thread and is not called with the final result.
+     * </p>
+     *
+     * @param k the number of matches to keep
+     * @param interval the time between snapshots, in milliseconds
+     * @param listener receives each snapshot, in ranked order
+     * @return the best {@code k} matches, in ranked order
+     * @throws CancellationException if the generation is cancelled
+     */
+    public ArrayList<KeywordMatch> scoreTop(int k, long interval, KeywordGenerator.SnapshotListener listener) {
+        synchronized (this) {
+            this.runningK = Math.max(k, 0);
+        }
+        ForkJoinPool scoringPool = ParallelScorer.acquirePool();
+        try {
+            ForkJoinTask<int[]> task = scoringPool.submit(new ScoringTask(0, this.candidates.length, Math.max(k, 0)));
+            int published = 0;
+            while (true) {
+                try {
+                    return toMatches(task.get(interval, TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    ArrayList<KeywordMatch> snapshot = null;
+                    synchronized (this) {
+                        if (this.runningVersion != published) {
+                            published = this.runningVersion;
+                            snapshot = toMatches(this.running);
+                        }
+                    }
+                    if (snapshot != null) {
+                        listener.snapshot(snapshot);
+                    }
+                } catch (InterruptedException e) {
+                    this.progress.cancel();
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("generation interrupted");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            ParallelScorer.releasePool(scoringPool);
+        }
+    }
+
+    /**
+     * Gets the matches at the given positions.
+     *
+     * @param top the positions of the matches
+     * @return the matches, in the same order
+     */
+    ArrayList<KeywordMatch> toMatches(int[] top) {
+        ArrayList<KeywordMatch> ranked = new ArrayList<>();
+        for (int i : top) {
+            ranked.add(this.matches[i]);
+        }
+        return ranked;
+    }
+
+    /**
+     * Merges the best matches of a scored range into the running top-K, if the best matches are streamed.
+     *
+     * @param top the ranked positions of the best matches in the range
+     */
+    synchronized void offer(int[] top) {
+        if (this.runningK == 0 || top.length == 0) {
+            return;
+        }
+        this.running = merge(this.running, top, this.runningK);
+        this.runningVersion++;
+    }
+
+    /**
+     * Merges two ranked lists of positions.
+     *
+     * @param a the ranked positions of the first list
+     * @param b the ranked positions of the second list
+     * @param k the number of positions to keep
+     * @return the best {@code k} positions of both, in ranked order
+     */
+    int[] merge(int[] a, int[] b, int k) {
+        int[] top = new int[Math.min(k, a.length + b.length)];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < top.length; n++) {
+            if (j >= b.length || (i < a.length && RankedMatches.compareRanks(this.matches, a[i], b[j]) < 0)) {
+                top[n] = a[i++];
+            }
+            else {
+                top[n] = b[j++];
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Scores a single candidate.
+     *
+     * @param i the position of the candidate
+     */
+    void score(int i) {
+        int doc = this.candidates[i];
+        KeywordMatch kwMatch = new KeywordMatch(this.corpus.getSearchTerm(doc), this.keyword);
+        // unweighted matches reuse the precomputed vector of the search term
+        SparseVector vector;
+        if (kwMatch.weightTF(this.categoryWeights, this.attributeWeights)) {
+            vector = this.view.createTFIDFVector(kwMatch.getTF());
+        }
+        else {
+            vector = this.view.getVector(doc);
+        }
+        kwMatch.setScore(CosineSimilarity.computeCosineSimilarity(vector, this.keywordVector));
+        this.matches[i] = kwMatch;
+    }
+
+    /**
+     * Scores a range of candidates, splitting it in half until it is small enough.
+     * <p>
+     * The result is the positions of the best {@code k} matches in the range, in ranked order.
+     * </p>
+     */
+    class ScoringTask extends RecursiveTask<int[]> {
+
+        /** Serial version UID for serialization. */
+        private static final long serialVersionUID = 1L;
+
+        /** First position of the range. */
+        final int from;
+
+        /** Position after the end of the range. */
+        final int to;
+
+        /** Number of matches to keep, or 0 to keep none. */
+        final int k;
+
+        /**
+         * Constructs a ScoringTask for a range of candidates.
+         *
+         * @param from the first position of the range
+         * @param to the position after the end of the range
+         * @param k the number of matches to keep
+         */
+        ScoringTask(int from, int to, int k) {
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (this.to - this.from <= SPLIT_THRESHOLD) {
+                return scoreRange();
+            }
+            int mid = (this.from + this.to) >>> 1;
+            ScoringTask left = new ScoringTask(this.from, mid, this.k);
+            ScoringTask right = new ScoringTask(mid, this.to, this.k);
+            left.fork();
+            int[] rightTop = right.compute();
+            return merge(left.join(), rightTop, this.k);
+        }
+
+        /**
+         * Scores the range on the current thread, keeping the best matches in a bounded heap.
+         *
+         * @return the positions of the best matches in the range, in ranked order
+         */
+        int[] scoreRange() {
+            // the head of the heap is the worst of the best k matches seen so far
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(this.k, 1), new Comparator<Integer>() {
+                @Override
+                public int compare(Integer i, Integer j) {
+                    return RankedMatches.compareRanks(ParallelScorer.this.matches, j, i);
+                }
+            });
+            for (int i = this.from; i < this.to; i++) {
+                ParallelScorer.this.progress.checkCancelled();
+                score(i);
+                if (this.k == 0) {
+                    continue;
+                }
+                if (heap.size() < this.k) {
+                    heap.add(i);
+                }
+                else if (RankedMatches.compareRanks(ParallelScorer.this.matches, i, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(i);
+                }
+            }
+
+            ParallelScorer.this.progress.scored.addAndGet(this.to - this.from);
+
+            int[] top = new int[heap.size()];
+            for (int i = top.length - 1; i >= 0; i--) {
+                top[i] = heap.poll();
+            }
+            offer(top);
+            return top;
+        }
+    }
+
+    /**
+     * Gets the number of threads used to score candidates.
+     *
+     * @return the degree of parallelism
+     */
+    public static int getParallelism() {
+        return ParallelScorer.parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to score candidates.
+     * <p>
+     * The next generation gets a new pool. The current pool finishes any scoring already in progress and is
+     * shut down once no scorer is using it.
+     * </p>
+     *
+     * @param n the degree of parallelism, at least 1
+     */
+    public static synchronized void setParallelism(int n) {
+        n = Math.max(n, 1);
+        if (n != ParallelScorer.parallelism) {
+            ParallelScorer.parallelism = n;
+            if (ParallelScorer.pool != null && !ParallelScorer.poolUsers.containsKey(ParallelScorer.pool)) {
+                ParallelScorer.pool.shutdown();
+            }
+            ParallelScorer.pool = null;
+        }
+    }
+
+    /**
+     * Gets the pool scoring tasks run on, creating it with the current parallelism if needed, and records
+     * that a scorer is using it. Each call must be followed by a call to {@link #releasePool(ForkJoinPool)}.
+     *
+     * @return the fork-join pool
+     */
+    static synchronized ForkJoinPool acquirePool() {
+        if (ParallelScorer.pool == null) {
+            ParallelScorer.pool = new ForkJoinPool(ParallelScorer.parallelism);
+        }
+        Integer users = ParallelScorer.poolUsers.get(ParallelScorer.pool);
+        ParallelScorer.poolUsers.put(ParallelScorer.pool, users == null ? 1 : users + 1);
+        return ParallelScorer.pool;
+    }
+
+    /**
+     * Records that a scorer has finished with a pool, shutting the pool down if it has been replaced and no
+     * other scorer is using it.
+     *
+     * @param usedPool the pool returned by {@link #acquirePool()}
+     */
+    static synchronized void releasePool(ForkJoinPool usedPool) {
+        int users = ParallelScorer.poolUsers.get(usedPool) - 1;
+        if (users > 0) {
+            ParallelScorer.poolUsers.put(usedPool, users);
+            return;
+        }
+        ParallelScorer.poolUsers.remove(usedPool);
+        if (usedPool != ParallelScorer.pool) {
+            usedPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package bss.KeywordGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import bss.Keywords.KeywordMatch;
+
+/**
+ * The scored matches of a keyword generation, ranked lazily one page at a time.
+ * <p>
+ * Matches are ordered by score, then orders, then CVR, all descending, with ties broken by their position
+ * in the dataset. Instead of sorting every match, a page is produced by keeping the best matches in a
+ * bounded heap, so looking at the first few hundred results only costs O(n log k).
+ * </p>
+ */
+public class RankedMatches {
+
+    /** Orders keyword matches by score, then orders, then CVR, all descending. */
+    public static final Comparator<KeywordMatch> BY_RELEVANCE = new Comparator<KeywordMatch>() {
+        @Override
+        public int compare(KeywordMatch kw1, KeywordMatch kw2) {
+            int c = Double.compare(kw2.getScore(), kw1.getScore());
+            if (c == 0) {
+                c = Integer.compare(kw2.getOrders(), kw1.getOrders());
+            }
+            if (c == 0) {
+                c = Double.compare(kw2.getCVR(), kw1.getCVR());
+            }
+            return c;
+        }
+    };
+
+    /** The scored matches, in dataset order. */
+    final KeywordMatch[] matches;
+
+    /** Positions of the best matches found so far, in ranked order. */
+    int[] ranking;
+
+    /** Orders positions in {@code matches} by relevance, then by position. */
+    final Comparator<Integer> byRank;
+
+    /**
+     * Constructs a RankedMatches from scored matches.
+     *
+     * @param matches the scored matches, in dataset order
+     */
+    public RankedMatches(List<KeywordMatch> matches) {
+        this.matches = matches.toArray(new KeywordMatch[0]);
+        this.ranking = new int[0];
+        this.byRank = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i, Integer j) {
+                return RankedMatches.compareRanks(RankedMatches.this.matches, i, j);
+            }
+        };
+    }
+
+    /**
+     * Compares two positions in an array of matches by relevance, then by position.
+     *
+     * @param matches the scored matches, in dataset order
+     * @param i the first position
+     * @param j the second position
+     * @return a negative number if the match at {@code i} ranks higher, a positive number if it ranks lower
+     */
+    static int compareRanks(KeywordMatch[] matches, int i, int j) {
+        int c = BY_RELEVANCE.compare(matches[i], matches[j]);
+        return c != 0 ? c : Integer.compare(i, j);
+    }
+
+    /**
+     * Gets the total number of matches.
+     *
+     * @return the number of matches
+     */
+    public int size() {
+        return this.matches.length;
+    }
+
+    /**
+     * Gets a page of matches in ranked order.
+     *
+     * @param offset the rank of the first match to return
+     * @param k the maximum number of matches to return
+     * @return the matches ranked from {@code offset} to {@code offset + k}
+     */
+    public synchronized ArrayList<KeywordMatch> getPage(int offset, int k) {
+        int end = (int) Math.min((long) offset + k, this.matches.length);
+        if (end > this.ranking.length) {
+            // grow geometrically so paging through the whole list stays O(n log n)
+            rankTop(Math.min(Math.max(end, 2 * this.ranking.length), this.matches.length));
+        }
+
+        ArrayList<KeywordMatch> page = new ArrayList<>();
+        for (int i = offset; i < end; i++) {
+            page.add(this.matches[this.ranking[i]]);
+        }
+        return page;
+    }
+
+    /**
+     * Finds the {@code k} best matches with a bounded heap and stores them in ranked order.
+     *
+     * @param k the number of matches to rank
+     */
+    void rankTop(int k) {
+        // the head of the heap is the worst of the best k matches seen so far
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, this.byRank.reversed());
+        for (int i = 0; i < this.matches.length; i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            }
+            else if (this.byRank.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        Integer[] top = heap.toArray(new Integer[0]);
+        Arrays.sort(top, this.byRank);
+        this.ranking = new int[top.length];
+        for (int i = 0; i < top.length; i++) {
+            this.ranking[i] = top[i];
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package bss.KeywordGeneration;
+
+import java.util.Arrays;
+
+/**
+ * A TF-IDF vector that only stores its non-zero entries.
+ * <p>
+ * Entries are kept as parallel arrays of term ids and values, sorted by term id, so the dot product
+ * and norm only cost as much as the terms actually present in the keyword rather than the size of
+ * the whole vocabulary. Sums are accumulated in term-id order, which {@link CorpusStatistics} fixes.
+ * </p>
+ */
+public class SparseVector {
+
+    /** Term ids of the non-zero entries, in ascending order. */
+    final int[] indices;
+
+    /** Values of the non-zero entries, parallel to {@code indices}. */
+    final double[] values;
+
+    /** The L2 norm of the vector, computed once on construction. */
+    final double norm;
+
+    /**
+     * Constructs a SparseVector from unsorted term ids and their values.
+     *
+     * @param indices the term ids of the entries
+     * @param values the values of the entries
+     * @param size the number of entries to use from the arrays
+     */
+    public SparseVector(int[] indices, double[] values, int size) {
+        this.indices = Arrays.copyOf(indices, size);
+        this.values = Arrays.copyOf(values, size);
+
+        // keywords only have a handful of tokens, so an insertion sort is enough
+        for (int i = 1; i < size; i++) {
+            int index = this.indices[i];
+            double value = this.values[i];
+            int j = i - 1;
+            while (j >= 0 && this.indices[j] > index) {
+                this.indices[j + 1] = this.indices[j];
+                this.values[j + 1] = this.values[j];
+                j--;
+            }
+            this.indices[j + 1] = index;
+            this.values[j + 1] = value;
+        }
+
+        double sum = 0;
+        for (double v : this.values) {
+            sum += v * v;
+        }
+        this.norm = Math.sqrt(sum);
+    }
+
+    /**
+     * Gets the number of non-zero entries in this vector.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return this.indices.length;
+    }
+
+    /**
+     * Computes the dot product of this vector and another.
+     *
+     * @param v the other vector
+     * @return the dot product of the two vectors
+     */
+    public double dotProduct(SparseVector v) {
+        double dot = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.indices.length && j < v.indices.length) {
+            if (this.indices[i] == v.indices[j]) {
+                dot += this.values[i] * v.values[j];
+                i++;
+                j++;
+            }
+            else if (this.indices[i] < v.indices[j]) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return dot;
+    }
+
+    /**
+     * Gets the L2 norm of this vector.
+     *
+     * @return the norm of the vector
+     */
+    public double getNorm() {
+        return this.norm;
+    }
+}
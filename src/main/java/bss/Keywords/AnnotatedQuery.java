@@ -0,0 +1,111 @@
+package bss.Keywords;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * The parts of a CoreNLP annotation that tokenization reads, stored compactly for one query.
+ * <p>
+ * Each token is kept as parallel arrays of its text, lemma, part of speech, numeric value and offset in
+ * the query, which is small enough to cache on disk and cheap to turn back into {@link CoreLabel} tokens.
+ * </p>
+ */
+public class AnnotatedQuery {
+
+    /** Text of each token. */
+    String[] values;
+
+    /** Lemma of each token. */
+    String[] lemmas;
+
+    /** Part-of-speech tag of each token. */
+    String[] tags;
+
+    /** Numeric value of each token as written by {@link Number#toString()}, or null if it has none. */
+    String[] numbers;
+
+    /** Character offset of each token in the query. */
+    int[] begins;
+
+    /**
+     * Constructs an AnnotatedQuery from annotated tokens.
+     *
+     * @param annotatedTokens the tokens annotated by Stanford CoreNLP
+     */
+    public AnnotatedQuery(List<CoreLabel> annotatedTokens) {
+        int size = annotatedTokens.size();
+        this.values = new String[size];
+        this.lemmas = new String[size];
+        this.tags = new String[size];
+        this.numbers = new String[size];
+        this.begins = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            CoreLabel at = annotatedTokens.get(i);
+            this.values[i] = at.value();
+            this.lemmas[i] = at.lemma();
+            this.tags[i] = at.get(CoreAnnotations.PartOfSpeechAnnotation.class);
+            this.begins[i] = at.beginPosition();
+
+            // only these types are turned into tokens, any other value is treated like no value
+            Object num = at.get(CoreAnnotations.NumericValueAnnotation.class);
+            if (num instanceof Integer || num instanceof Long || num instanceof Double) {
+                this.numbers[i] = num.toString();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tokens in the query.
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * Gets the numeric value of a token.
+     *
+     * @param i the position of the token
+     * @return the numeric value as a Long or Double, or null if the token has none
+     */
+    public Number getNumber(int i) {
+        if (this.numbers[i] == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(this.numbers[i]);
+        } catch (NumberFormatException ex) {
+            return Double.parseDouble(this.numbers[i]);
+        }
+    }
+
+    /**
+     * Recreates the annotated tokens of the query.
+     *
+     * @return a list of {@link CoreLabel} tokens with the stored annotations
+     */
+    public ArrayList<CoreLabel> toCoreLabels() {
+        ArrayList<CoreLabel> annotatedTokens = new ArrayList<>();
+        for (int i = 0; i < size(); i++) {
+            CoreLabel at = new CoreLabel();
+            at.setValue(this.values[i]);
+            at.setWord(this.values[i]);
+            at.setOriginalText(this.values[i]);
+            at.setLemma(this.lemmas[i]);
+            at.setTag(this.tags[i]);
+            at.setBeginPosition(this.begins[i]);
+            at.setEndPosition(this.begins[i] + this.values[i].length());
+            Number num = getNumber(i);
+            if (num != null) {
+                at.set(CoreAnnotations.NumericValueAnnotation.class, num);
+            }
+            annotatedTokens.add(at);
+        }
+        return annotatedTokens;
+    }
+}
@@ -0,0 +1,230 @@
+package bss.Keywords;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import bss.Data.DataAccess;
+
+/**
+ * A disk-backed cache of query annotations for one {@link AnnotationProfile}.
+ * <p>
+ * The same queries come back in every search-term report, so the annotation of each normalized query is
+ * kept and written to {@code annotationCache_<PROFILE>.json}. The file records the annotators and cache
+ * format it was written with, and is ignored if either no longer matches, so stale annotations are never
+ * served.
+ * </p>
+ * <p>
+ * The cache keeps at most {@link #MAX_SIZE} queries and evicts the least recently used ones beyond that.
+ * It is written without whitespace, after a batch only once enough new queries have been added, and in
+ * full when the application shuts down.
+ * </p>
+ */
+public class AnnotationCache {
+
+    /** Version of the cache format, increased whenever the stored annotations change meaning. */
+    static final int FORMAT_VERSION = 1;
+
+    /** Maximum number of queries kept in a cache. */
+    static final int MAX_SIZE = 100000;
+
+    /** Number of queries that must be added before {@link #flush()} writes the cache. */
+    static final int FLUSH_THRESHOLD = 10000;
+
+    /** The cache of each profile, loaded on first use. */
+    static final EnumMap<AnnotationProfile, AnnotationCache> caches = new EnumMap<>(AnnotationProfile.class);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                AnnotationCache.saveAll();
+            }
+        }, "annotation cache shutdown"));
+    }
+
+    /** The profile whose annotations are cached. */
+    final AnnotationProfile profile;
+
+    /** Annotation of each normalized query, from least to most recently used. */
+    final Map<String, AnnotatedQuery> annotations;
+
+    /** Number of annotations added since the cache was last written. */
+    final AtomicInteger added;
+
+    /** Number of queries answered from the cache. */
+    final AtomicInteger hits;
+
+    /** Number of queries that had to be annotated. */
+    final AtomicInteger misses;
+
+    /**
+     * The contents of a cache file.
+     */
+    static class CacheFile {
+
+        /** Version of the cache format the file was written with. */
+        int formatVersion;
+
+        /** The annotators the cached queries were annotated with. */
+        String annotators;
+
+        /** Annotation of each normalized query, from least to most recently used. */
+        LinkedHashMap<String, AnnotatedQuery> annotations;
+    }
+
+    /**
+     * Loads the cache of a profile from disk, discarding it if it was written by different annotators.
+     *
+     * @param profile the profile whose annotations are cached
+     */
+    private AnnotationCache(AnnotationProfile profile) {
+        this.profile = profile;
+        this.annotations = Collections.synchronizedMap(new LinkedHashMap<String, AnnotatedQuery>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AnnotatedQuery> eldest) {
+                return size() > MAX_SIZE;
+            }
+        });
+        this.added = new AtomicInteger();
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+
+        CacheFile file = null;
+        try {
+            file = (CacheFile) DataAccess.readFromJson(getFileName(), new TypeToken<CacheFile>(){}.getType());
+        } catch (JsonParseException ex) {
+            // last resort for a file damaged outside the application; a cache is never worth failing startup
+            System.out.println("discarding corrupt annotation cache " + getFileName() + ": " + ex.getMessage());
+        }
+        if (file != null && file.annotations != null && file.formatVersion == FORMAT_VERSION && profile.annotators.equals(file.annotators)) {
+            this.annotations.putAll(file.annotations);
+        }
+    }
+
+    /**
+     * Gets the name of the file this cache is stored in.
+     *
+     * @return the file name (without extension)
+     */
+    String getFileName() {
+        return "annotationCache_" + this.profile.name();
+    }
+
+    /**
+     * Normalizes a query so that queries differing only in case or spacing share a cache entry.
+     *
+     * @param query the query
+     * @return the normalized query
+     */
+    public static String normalize(String query) {
+        return query.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Gets the annotation of a query, annotating it with the profile if it is not cached.
+     *
+     * @param query the query to annotate
+     * @return the annotation of the normalized query
+     */
+    public AnnotatedQuery annotate(String query) {
+        String key = AnnotationCache.normalize(query);
+        AnnotatedQuery annotation = this.annotations.get(key);
+        if (annotation != null) {
+            this.hits.incrementAndGet();
+            return annotation;
+        }
+
+        this.misses.incrementAndGet();
+        annotation = new AnnotatedQuery(this.profile.annotate(key));
+        if (this.annotations.putIfAbsent(key, annotation) == null) {
+            this.added.incrementAndGet();
+        }
+        return annotation;
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of queries that had to be annotated.
+     *
+     * @return the number of cache misses
+     */
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Writes the cache to disk if enough annotations have been added since it was last written.
+     */
+    public void flush() {
+        if (this.added.get() >= FLUSH_THRESHOLD) {
+            save();
+        }
+    }
+
+    /**
+     * Queues the cache to be written to disk if any annotations have been added since it was last written.
+     */
+    public synchronized void save() {
+        if (this.added.getAndSet(0) == 0) {
+            return;
+        }
+        CacheFile file = new CacheFile();
+        file.formatVersion = FORMAT_VERSION;
+        file.annotators = this.profile.annotators;
+        synchronized (this.annotations) {
+            file.annotations = new LinkedHashMap<>(this.annotations);
+        }
+        DataAccess.writeToJson(getFileName(), file, false);
+    }
+
+    /**
+     * Writes the cache of every loaded profile to disk if enough annotations have been added to it.
+     */
+    public static synchronized void flushAll() {
+        for (AnnotationCache cache : AnnotationCache.caches.values()) {
+            cache.flush();
+        }
+    }
+
+    /**
+     * Writes the cache of every loaded profile to disk and waits for the writes. Called when the
+     * application shuts down.
+     */
+    public static synchronized void saveAll() {
+        for (AnnotationCache cache : AnnotationCache.caches.values()) {
+            cache.save();
+        }
+        for (AnnotationCache cache : AnnotationCache.caches.values()) {
+            DataAccess.awaitWrite(cache.getFileName());
+        }
+    }
+
+    /**
+     * Returns the cache of a profile, loading it from disk on first use.
+     *
+     * @param profile the annotation profile
+     * @return the cache of the profile
+     */
+    public static synchronized AnnotationCache getInstance(AnnotationProfile profile) {
+        AnnotationCache cache = AnnotationCache.caches.get(profile);
+        if (cache == null) {
+            cache = new AnnotationCache(profile);
+            AnnotationCache.caches.put(profile, cache);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,105 @@
+package bss.Keywords;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.ie.NumberNormalizer;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.CoreMap;
+
+/**
+ * Enum representing the Stanford CoreNLP annotator sets that queries can be tokenized with.
+ * <p>
+ * Tokenization only reads the part of speech, lemma and numeric value of each token. The full profile
+ * gets numeric values from the NER annotator, which is by far the slowest annotator and loads hundreds of
+ * MB of models. The fast profile skips NER and normalizes numbers itself. Each pipeline is created the
+ * first time its profile is used.
+ * </p>
+ */
+public enum AnnotationProfile {
+
+    /** Full pipeline including NER, matching how queries have always been tokenized. */
+    FULL("tokenize,ssplit,pos,lemma,ner"),
+
+    /** Pipeline without NER, with numbers normalized from the token text. */
+    FAST("tokenize,ssplit,pos,lemma") {
+        @Override
+        protected void normalizeNumbers(List<CoreLabel> annotatedTokens) {
+            for (CoreLabel at : annotatedTokens) {
+                if (at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CD")) {
+                    try {
+                        Number num = NumberNormalizer.wordToNumber(at.value());
+                        if (num != null) {
+                            at.set(CoreAnnotations.NumericValueAnnotation.class, num);
+                        }
+                    } catch (NumberFormatException ex) {
+                        // not a number on its own (e.g. "11x17" or "1/2"), NER leaves these unset as well
+                    }
+                }
+            }
+        }
+    };
+
+    /** The CoreNLP annotators this profile runs. */
+    public final String annotators;
+
+    /** The pipeline for this profile, or null if it has not been created yet. */
+    private StanfordCoreNLP pipeline;
+
+    /**
+     * Constructs an AnnotationProfile.
+     *
+     * @param annotators the CoreNLP annotators to run
+     */
+    private AnnotationProfile(String annotators) {
+        this.annotators = annotators;
+        this.pipeline = null;
+    }
+
+    /**
+     * Gets the pipeline for this profile, creating it on first use.
+     *
+     * @return the Stanford CoreNLP pipeline
+     */
+    public synchronized StanfordCoreNLP getPipeline() {
+        if (this.pipeline == null) {
+            Properties props = new Properties();
+            props.setProperty("annotators", this.annotators);
+            this.pipeline = new StanfordCoreNLP(props);
+        }
+        return this.pipeline;
+    }
+
+    /**
+     * Annotates text with this profile.
+     *
+     * @param text the text to annotate
+     * @return the annotated tokens of every sentence, in order
+     */
+    public ArrayList<CoreLabel> annotate(String text) {
+        Annotation annotation = new Annotation(text);
+        getPipeline().annotate(annotation);
+
+        ArrayList<CoreLabel> annotatedTokens = new ArrayList<>();
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        for (CoreMap sentence : sentences) {
+            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+                annotatedTokens.add(token);
+            }
+        }
+        normalizeNumbers(annotatedTokens);
+        return annotatedTokens;
+    }
+
+    /**
+     * Sets the numeric value of number tokens that the annotators did not.
+     *
+     * @param annotatedTokens the annotated tokens
+     */
+    protected void normalizeNumbers(List<CoreLabel> annotatedTokens) {
+    }
+}
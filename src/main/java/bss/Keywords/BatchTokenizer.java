@@ -0,0 +1,174 @@
+package bss.Keywords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/**
+ * Tokenizes many keywords at once on a pool of worker threads.
+ * <p>
+ * Work is handed to the workers through a bounded queue. When the queue is full the submitting thread
+ * tokenizes the next keyword itself, so a large upload never queues more than a few jobs per worker. The
+ * workers are created once and reused by every batch, and exit after they have been idle for a while. The
+ * workers share the CoreNLP pipelines, which are safe to use from several threads, and annotate with the
+ * profile that was active on the submitting thread. Results are returned in input order, and annotations
+ * made during the batch are written to the {@link AnnotationCache} when it finishes.
+ * </p>
+ */
+public class BatchTokenizer {
+
+    /** Number of jobs that may wait in the queue for each worker thread. */
+    static final int QUEUE_PER_THREAD = 4;
+
+    /** Seconds an idle worker thread waits for more work before it exits. */
+    static final long KEEP_ALIVE_SECONDS = 60;
+
+    /** Number of worker threads used to tokenize. */
+    static int threads = Runtime.getRuntime().availableProcessors();
+
+    /** The worker threads shared by every batch, or null until the first batch. */
+    static ThreadPoolExecutor executor = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BatchTokenizer() {
+    }
+
+    /**
+     * Gets the number of worker threads used to tokenize.
+     *
+     * @return the number of threads
+     */
+    public static int getThreads() {
+        return BatchTokenizer.threads;
+    }
+
+    /**
+     * Sets the number of worker threads used to tokenize.
+     *
+     * @param n the number of threads, at least 1
+     */
+    public static void setThreads(int n) {
+        BatchTokenizer.threads = Math.max(n, 1);
+    }
+
+    /**
+     * Gets the worker threads, creating them on first use or when the number of threads has changed.
+     * <p>
+     * A replaced executor finishes the jobs already queued on it before its threads exit.
+     * </p>
+     *
+     * @return the executor to submit jobs to
+     */
+    static synchronized ThreadPoolExecutor getExecutor() {
+        int n = BatchTokenizer.threads;
+        if (BatchTokenizer.executor != null && BatchTokenizer.executor.getMaximumPoolSize() == n) {
+            return BatchTokenizer.executor;
+        }
+        if (BatchTokenizer.executor != null) {
+            BatchTokenizer.executor.shutdown();
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        BatchTokenizer.executor = new ThreadPoolExecutor(n, n, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(n * QUEUE_PER_THREAD), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "tokenizer " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor pool) {
+                // the queue is full, or another batch replaced the pool: run the job on the submitting thread
+                r.run();
+            }
+        });
+        BatchTokenizer.executor.allowCoreThreadTimeOut(true);
+        return BatchTokenizer.executor;
+    }
+
+    /**
+     * Tokenizes each keyword and computes its term frequencies.
+     *
+     * @param keywords the keywords to tokenize
+     */
+    public static void tokenizeAll(List<? extends Keyword> keywords) {
+        BatchTokenizer.process(keywords.size(), new IntFunction<Void>() {
+            @Override
+            public Void apply(int i) {
+                Keyword kw = keywords.get(i);
+                kw.tokenize();
+                kw.computeTF();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Runs a tokenizing job for each index from 0 to {@code count - 1} on the worker threads.
+     *
+     * @param <T> the type of the job results
+     * @param count the number of jobs
+     * @param job the job to run for each index
+     * @return the result of each job, in index order
+     * @throws RuntimeException the first exception thrown by a job, after all jobs have finished
+     */
+    public static <T> ArrayList<T> process(int count, IntFunction<T> job) {
+        Object[] results = new Object[count];
+        AnnotationProfile profile = Tokenizer.getProfile();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        CountDownLatch finished = new CountDownLatch(count);
+        ThreadPoolExecutor executor = BatchTokenizer.getExecutor();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    AnnotationProfile previous = Tokenizer.useProfile(profile);
+                    try {
+                        results[index] = job.apply(index);
+                    } catch (RuntimeException ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        Tokenizer.useProfile(previous);
+                        finished.countDown();
+                    }
+                }
+            });
+        }
+
+        // jobs cannot be stopped half way, so an interrupt is kept for the caller once the batch is done
+        boolean interrupted = false;
+        while (finished.getCount() > 0) {
+            try {
+                finished.await();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        AnnotationCache.flushAll();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> resultList = (List<T>) Arrays.asList(results);
+        return new ArrayList<>(resultList);
+    }
+}
@@ -1,14 +1,19 @@
 package bss.Keywords;
 
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.apache.commons.collections4.map.ListOrderedMap;
 
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 
 import bss.Data.DataAccess;
@@ -26,6 +31,7 @@ public enum Categories {
         public Entry addEntry(String str) {
             if (!this.entries.contains(str)) {
                 this.entries.add(str);
+                Categories.modified(str);
                 return new Entry(str);
             }
             else {
@@ -36,11 +42,11 @@ public enum Categories {
         @Override
         public void replaceEntry(String oldStr, String newStr) {
             if (this.entries.contains(oldStr)) {
-                Entry entry = this.entries.get(oldStr);
-                entry.str = newStr;
+                Entry entry = this.entries.rename(oldStr, newStr);
                 if (entry.synonyms.contains(newStr)) {
                     entry.synonyms.remove(newStr);
                 }
+                Categories.modified(entry, oldStr);
                 // update dict
             }
         }
@@ -50,12 +56,7 @@ public enum Categories {
     PRODUCT_TYPE {
         @Override
         public String getProductCategory(String productType) {
-            for (Entry entry : Categories.PRODUCT_CATEGORY.entries) {
-                if (entry.synonyms.contains(productType)) {
-                    return entry.str;
-                }
-            }
-            return null;
+            return DictionaryIndex.getInstance().getProductCategory(productType);
         }
     }, 
 
@@ -78,6 +79,7 @@ public enum Categories {
                 entry.synonyms.add(str + " count");
                 entry.synonyms.add(str + " set");
                 entry.synonyms.add(str + " pack");
+                Categories.modified(entry);
             }
             return entry;
         }
@@ -96,12 +98,22 @@ public enum Categories {
     /** Default category for unclassified terms. */
     OTHER {
         @Override
-        protected void initializeCategory() {
+        protected boolean initializeCategory() {
+            return true;
         }
     };
 
     /** List of entries for this category. */
     final EntryList entries;
+
+    /** Whether the entries have been read from the dictionary file. */
+    boolean loaded;
+
+    /** Number of changes made to the dictionary through the mutators of this enum. */
+    private static volatile int version = 0;
+
+    /** The strings each change added, removed or renamed, indexed by the version the change started from, or null for a change that may have affected every entry. */
+    private static final ArrayList<String[]> changes = new ArrayList<>();
     // static final ArrayList<String> unclassified;
 
     /** Static initialization block to load dictionary entries. */
@@ -111,14 +123,60 @@ public enum Categories {
     
     private Categories() {
         this.entries = new EntryList();
-        initializeCategory();
+        this.loaded = initializeCategory();
     }
 
     /**
      * Initializes the category by loading entries from a JSON file.
+     * <p>
+     * A file that is missing or cannot be parsed leaves the category empty instead of failing the
+     * initialization of the enum, so that {@link #load()} can report it and be retried.
+     * </p>
+     * 
+     * @return true if the entries were read
      */
-    protected void initializeCategory() {
-        this.entries.addAll((EntryList) DataAccess.readFromJson("dictionary/" + name(), new TypeToken<EntryList>(){}.getType()));
+    protected boolean initializeCategory() {
+        try {
+            EntryList fileEntries = (EntryList) DataAccess.readFromJson("dictionary/" + name(), new TypeToken<EntryList>(){}.getType());
+            if (fileEntries == null) {
+                return false;
+            }
+            this.entries.clear();
+            this.entries.addAll(fileEntries);
+            return true;
+        } catch (JsonParseException ex) {
+            System.out.println("can't parse dictionary file for " + name() + ": " + ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the dictionary file of every category that has not been read yet.
+     * <p>
+     * Reading a category changes the version of the dictionary, so that anything built while it was empty
+     * is built again.
+     * </p>
+     * 
+     * @throws IllegalStateException if the file of a category cannot be read
+     */
+    public static synchronized void load() {
+        ArrayList<String> failed = new ArrayList<>();
+        boolean read = false;
+        for (Categories c : Categories.values()) {
+            if (!c.loaded) {
+                c.loaded = c.initializeCategory();
+                read |= c.loaded;
+            }
+            if (!c.loaded) {
+                failed.add(DataAccess.getPath("dictionary/" + c.name() + ".json"));
+            }
+        }
+        if (read) {
+            Categories.modifiedAll();
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("can't read " + String.join(", ", failed));
+        }
     }
 
     /**
@@ -133,6 +191,71 @@ public enum Categories {
         return newValues;
     }
 
+    /**
+     * Gets the version of the dictionary, which changes every time an entry or synonym is modified.
+     * 
+     * @return The current dictionary version.
+     */
+    public static int getVersion() {
+        return Categories.version;
+    }
+
+    /**
+     * Records that the dictionary has been modified.
+     * 
+     * @param changed The entries and synonyms that were added, removed or renamed.
+     */
+    protected static synchronized void modified(String... changed) {
+        Categories.changes.add(changed);
+        Categories.version++;
+    }
+
+    /**
+     * Records that the dictionary has been modified in a way that may have affected every entry.
+     */
+    protected static synchronized void modifiedAll() {
+        Categories.changes.add(null);
+        Categories.version++;
+    }
+
+    /**
+     * Records that an entry has been modified, listing the entry and all of its synonyms as changed.
+     * <p>
+     * Whether two strings are synonyms depends on every synonym of their entry, so any change to an entry
+     * can affect tokens matched by its other synonyms.
+     * </p>
+     * 
+     * @param entry The modified entry.
+     * @param others Other strings that were changed, such as the entry's old name.
+     */
+    protected static void modified(Entry entry, String... others) {
+        ArrayList<String> changed = new ArrayList<>(entry.synonyms);
+        changed.add(entry.str);
+        for (String s : others) {
+            changed.add(s);
+        }
+        Categories.modified(changed.toArray(new String[changed.size()]));
+    }
+
+    /**
+     * Gets the entries and synonyms that have been added, removed or renamed since a version of the dictionary.
+     * 
+     * @param version The version to list changes since.
+     * @return The changed strings, possibly with duplicates, or null if a change may have affected every entry.
+     */
+    public static synchronized ArrayList<String> getChangesSince(int version) {
+        ArrayList<String> changed = new ArrayList<>();
+        for (int v = Math.max(version, 0); v < Categories.changes.size(); v++) {
+            if (Categories.changes.get(v) == null) {
+                return null;
+            }
+            for (String s : Categories.changes.get(v)) {
+                changed.add(s);
+            }
+        }
+        return changed;
+    }
+
     // public ArrayList<String> getSynonyms(String entry) {
     //     return this.entries.get(entry).synonyms;
     // }
@@ -197,6 +320,7 @@ public enum Categories {
             Entry entry = new Entry(str);
             entry.synonyms.add(str);
             this.entries.add(entry);
+            Categories.modified(entry);
             return entry;
         }
         else {
@@ -213,12 +337,12 @@ public enum Categories {
      */
     public void replaceEntry(String oldStr, String newStr) {
         if (this.entries.contains(oldStr)) {
-            Entry entry = this.entries.get(oldStr);
-            entry.str = newStr;
+            Entry entry = this.entries.rename(oldStr, newStr);
             if (entry.synonyms.contains(newStr)) {
                 entry.synonyms.remove(newStr);
             }
             entry.synonyms.set(0, newStr);
+            Categories.modified(entry, oldStr);
             // update dict
         }
     }
@@ -229,7 +353,14 @@ public enum Categories {
      * @param str The entry to remove.
      */
     public void removeEntry(String str) {
+        Entry entry = this.entries.get(str);
         this.entries.remove(str);
+        if (entry != null) {
+            Categories.modified(entry);
+        }
+        else {
+            Categories.modified(str);
+        }
         // update dict
     }
 
@@ -244,6 +375,7 @@ public enum Categories {
         if (!synonyms.contains(str)) {
             synonyms.add(str);
         }
+        Categories.modified(this.entries.get(entry));
         // update dict
     }
 
@@ -259,6 +391,7 @@ public enum Categories {
         if (!synonyms.contains(str)) {
             synonyms.add(pos, str);
         }
+        Categories.modified(this.entries.get(entry));
         // update dict
     }
 
@@ -278,6 +411,7 @@ public enum Categories {
         if (synonyms.contains(oldStr)) {
             synonyms.set(synonyms.indexOf(oldStr), newStr);
         }
+        Categories.modified(this.entries.get(entry), oldStr);
         // update dict
     }
 
@@ -289,6 +423,7 @@ public enum Categories {
      */
     public void removeSynonym(String entry, String str) {
         this.entries.get(entry).synonyms.remove(str);
+        Categories.modified(this.entries.get(entry), str);
         // update dict
     }
 
@@ -300,12 +435,7 @@ public enum Categories {
      * @return True if the strings are synonyms, otherwise false.
      */
     public boolean isSynonym(String s1, String s2) {
-        for (Entry entry : this.entries) {
-            if (entry.synonyms.contains(s1) && entry.synonyms.contains(s2)) {
-                return true;
-            }
-        }
-        return false;
+        return DictionaryIndex.getInstance().isSynonym(this, s1, s2);
     }
 
     /**
@@ -316,8 +446,9 @@ public enum Categories {
      * @return True if any item is a synonym, otherwise false.
      */
     public boolean containsSynonym(List<String> strList, String match) {
+        DictionaryIndex index = DictionaryIndex.getInstance();
         for (String s : strList) {
-            if (isSynonym(s, match)) {
+            if (index.isSynonym(this, s, match)) {
                 return true;
             }
         }
@@ -331,17 +462,7 @@ public enum Categories {
      * @return The category of the token.
      */
     public static Categories checkTokenCategory(String token) {
-        for (Categories c : Categories.getValues()) {
-            if (c == Categories.PRODUCT_CATEGORY) {
-                continue;
-            }
-            for (Entry entry : c.entries) {
-                if (entry.synonyms.contains(token)) {
-                    return c;
-                }
-            }
-        }
-        return Categories.OTHER;
+        return DictionaryIndex.getInstance().getTokenCategory(token);
     }
 
     /**
@@ -349,7 +470,7 @@ public enum Categories {
      */
     public void updateFile() {
         String filePath = DataAccess.getPath("dictionary/" + name() + ".json");
-        try (FileWriter fw = new FileWriter(filePath)) {
+        try (Writer fw = new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8)) {
             GsonBuilder gsonBuilder = new GsonBuilder();
             String jsonStr = gsonBuilder.setPrettyPrinting().create().toJson(this.entries);
             fw.write(jsonStr);
@@ -384,50 +505,52 @@ public enum Categories {
             if (c == Categories.PRODUCT_CATEGORY) { // skip product category
                 continue;
             }
-
             possibleMatches.put(c, new LinkedHashMap<>()); // initialize list for each category
+        }
 
-            for (Entry entry : c.entries) {
-                for (String s : entry.synonyms) {
-                    ArrayList<String> matchingTokens = new ArrayList<>(); // list of tokens matched within a dict entry
-                    String s2 = s.replaceAll(" ", "");
-
-                    // identify when s contains a token
-                    for (String t : tokens) {
-                        if (s.contains(t) || s2.contains(t)) {
-                            matchingTokens.add(t);
-                            if (s.contains(t)) {
-                                s = s.replace(t, "");
-                            }
-                            s2 = s2.replace(t, "");
-                        }
+        // only synonyms that contain one of the tokens can form a match, visited in dictionary order
+        SynonymMatcher matcher = SynonymMatcher.getInstance();
+        TreeSet<Integer> candidates = matcher.getCandidates(tokens);
+        for (Integer id = candidates.pollFirst(); id != null; id = candidates.pollFirst()) {
+            Categories c = matcher.getCategory(id);
+            Entry entry = matcher.getEntry(id);
+            String s = matcher.getSynonym(id);
+            ArrayList<String> matchingTokens = new ArrayList<>(); // list of tokens matched within a dict entry
+            String s2 = s.replaceAll(" ", "");
+
+            // identify when s contains a token
+            for (String t : tokens) {
+                if (s.contains(t) || s2.contains(t)) {
+                    matchingTokens.add(t);
+                    if (s.contains(t)) {
+                        s = s.replace(t, "");
                     }
+                    s2 = s2.replace(t, "");
+                }
+            }
 
-                    // if s contains no material that is not part of a token, tokens can be replaced with s
-                    s = s.replaceAll(" ", "");
-                    s = s.replaceAll("-", "");
-                    s = s.replaceAll(",", "");
-                    s = s.replaceAll("\"", "");
-                    if (s.equals("") || s2.equals("")) {
-                        possibleMatches.get(c).put(matchingTokens, entry.str); // add possible match
-                        if (c == Categories.PRODUCT_TYPE) {
-                            for (String mt : matchingTokens) {
-                                tokens.remove(mt);
-                                if (!tokens.contains(mt)) {
-                                    matchesPerToken.remove(mt);
-                                }
-                            }
-                            if (!tokens.contains(entry.str)) {
-                                tokens.add(entry.str);
-                            }
-                            matchesPerToken.put(entry.str, new ArrayList<>());
-                        }
-                        else {
-                            for (String mt : matchingTokens) {
-                                matchesPerToken.get(mt).add(matchingTokens);
-                            }
+            // if s contains no material that is not part of a token, tokens can be replaced with s
+            s = SynonymMatcher.stripSeparators(s);
+            if (s.equals("") || s2.equals("")) {
+                possibleMatches.get(c).put(matchingTokens, entry.str); // add possible match
+                if (c == Categories.PRODUCT_TYPE) {
+                    for (String mt : matchingTokens) {
+                        tokens.remove(mt);
+                        if (!tokens.contains(mt)) {
+                            matchesPerToken.remove(mt);
                         }
                     }
+                    if (!tokens.contains(entry.str)) {
+                        tokens.add(entry.str);
+                        // the new token can complete synonyms that have not been visited yet
+                        matcher.addCandidates(candidates, entry.str, id + 1);
+                    }
+                    matchesPerToken.put(entry.str, new ArrayList<>());
+                }
+                else {
+                    for (String mt : matchingTokens) {
+                        matchesPerToken.get(mt).add(matchingTokens);
+                    }
                 }
             }
         }
@@ -0,0 +1,156 @@
+package bss.Keywords;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+
+/**
+ * Reverse lookups from synonyms to the dictionary entries and categories they belong to.
+ * <p>
+ * Each synonym is mapped to the ids of the entries that list it within each category, to the first
+ * category it belongs to, and, for product types, to the product category that lists it. This turns the
+ * synonym checks made for every token during tokenization and keyword generation into hash lookups. The
+ * index is rebuilt whenever the dictionary is changed through the {@link Categories} mutators.
+ * </p>
+ */
+public class DictionaryIndex {
+
+    /** Index for the current dictionary, or null if it has not been built yet. */
+    static volatile DictionaryIndex instance = null;
+
+    /** Version of the dictionary this index was built from. */
+    final int dictionaryVersion;
+
+    /** Maps each synonym to the ids of the entries listing it, in list order, for each category. */
+    final EnumMap<Categories, HashMap<String, int[]>> entryIds;
+
+    /** Maps each synonym to the first category listing it, skipping product categories. */
+    final HashMap<String, Categories> tokenCategories;
+
+    /** Maps each product type to the first product category listing it. */
+    final HashMap<String, String> productCategories;
+
+    /**
+     * Builds the index from the entries of every category.
+     */
+    private DictionaryIndex() {
+        this.dictionaryVersion = Categories.getVersion();
+        this.entryIds = new EnumMap<>(Categories.class);
+        this.tokenCategories = new HashMap<>();
+        this.productCategories = new HashMap<>();
+
+        for (Categories c : Categories.values()) {
+            HashMap<String, ArrayList<Integer>> idLists = new HashMap<>();
+            int id = 0;
+            for (Entry entry : c.entries) {
+                for (String s : entry.synonyms) {
+                    ArrayList<Integer> ids = idLists.get(s);
+                    if (ids == null) {
+                        ids = new ArrayList<>();
+                        idLists.put(s, ids);
+                    }
+                    if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                        ids.add(id);
+                    }
+
+                    if (c == Categories.PRODUCT_CATEGORY) {
+                        if (!this.productCategories.containsKey(s)) {
+                            this.productCategories.put(s, entry.str);
+                        }
+                    }
+                    else if (c != Categories.OTHER && !this.tokenCategories.containsKey(s)) {
+                        this.tokenCategories.put(s, c);
+                    }
+                }
+                id++;
+            }
+
+            HashMap<String, int[]> synonymIds = new HashMap<>();
+            for (String s : idLists.keySet()) {
+                ArrayList<Integer> ids = idLists.get(s);
+                int[] array = new int[ids.size()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = ids.get(i);
+                }
+                synonymIds.put(s, array);
+            }
+            this.entryIds.put(c, synonymIds);
+        }
+    }
+
+    /**
+     * Checks if two strings are listed as synonyms by the same entry of a category.
+     *
+     * @param c the category to check
+     * @param s1 the first string
+     * @param s2 the second string
+     * @return true if an entry of the category lists both strings, otherwise false
+     */
+    public boolean isSynonym(Categories c, String s1, String s2) {
+        HashMap<String, int[]> synonymIds = this.entryIds.get(c);
+        int[] ids1 = synonymIds.get(s1);
+        int[] ids2 = synonymIds.get(s2);
+        if (ids1 == null || ids2 == null) {
+            return false;
+        }
+
+        // both lists are sorted, and almost always hold a single entry
+        int i = 0;
+        int j = 0;
+        while (i < ids1.length && j < ids2.length) {
+            if (ids1[i] == ids2[j]) {
+                return true;
+            }
+            else if (ids1[i] < ids2[j]) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the first category, other than product categories, that lists a token as a synonym.
+     *
+     * @param token the token to look up
+     * @return the category of the token, or OTHER if no category lists it
+     */
+    public Categories getTokenCategory(String token) {
+        Categories c = this.tokenCategories.get(token);
+        return c != null ? c : Categories.OTHER;
+    }
+
+    /**
+     * Gets the first product category that lists a product type as a synonym.
+     *
+     * @param productType the product type to look up
+     * @return the product category, or null if none lists the product type
+     */
+    public String getProductCategory(String productType) {
+        return this.productCategories.get(productType);
+    }
+
+    /**
+     * Returns the index for the current dictionary.
+     * <p>
+     * The index is rebuilt if the dictionary has changed since it was last built.
+     * </p>
+     *
+     * @return the singleton instance of DictionaryIndex
+     */
+    public static DictionaryIndex getInstance() {
+        DictionaryIndex index = DictionaryIndex.instance;
+        if (index == null || index.dictionaryVersion != Categories.getVersion()) {
+            synchronized (DictionaryIndex.class) {
+                index = DictionaryIndex.instance;
+                if (index == null || index.dictionaryVersion != Categories.getVersion()) {
+                    index = new DictionaryIndex();
+                    DictionaryIndex.instance = index;
+                }
+            }
+        }
+        return index;
+    }
+}
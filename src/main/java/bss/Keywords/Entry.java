@@ -65,4 +65,14 @@ public class Entry {
 
         return false;
     }
+
+    /**
+     * Returns a hash code for this entry, consistent with {@link #equals(Object)}.
+     * 
+     * @return The hash code of the primary term.
+     */
+    @Override
+    public int hashCode() {
+        return this.str.hashCode();
+    }
 }
\ No newline at end of file
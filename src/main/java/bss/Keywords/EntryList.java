@@ -1,47 +1,83 @@
 package bss.Keywords;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 /**
- * Represents a list of {@link Entry} objects with additional utility methods.
+ * Represents an insertion-ordered collection of {@link Entry} objects, indexed by their primary terms.
+ * <p>
+ * Entries are kept in a {@link LinkedHashMap} keyed by primary term, so looking up, checking for and
+ * removing an entry by its term take constant time while iteration still follows the order the entries
+ * were added in. The list serializes to the same JSON array of entries as before.
+ * </p>
  */
-public class EntryList extends ArrayList<Entry> {
+public class EntryList extends AbstractCollection<Entry> {
 
-    /**
-     * Retrieves the {@link Entry} object associated with the specified term.
-     * 
-     * @param str The primary term to search for.
-     * @return The {@link Entry} object if found; otherwise, {@code null}.
-     */
-    public Entry get(String str) {
-        if (contains(str)) {
-            return get(indexOf(new Entry(str)));
-        }
-        else {
-            return null;
-        }
-    }
+    /** The entries of this list, keyed by their primary terms, in insertion order. */
+    final LinkedHashMap<String, Entry> entries;
 
     /**
      * Constructs an empty {@link EntryList}.
      */
     public EntryList() {
         super();
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Retrieves the {@link Entry} object associated with the specified term.
+     *
+     * @param str The primary term to search for.
+     * @return The {@link Entry} object if found; otherwise, {@code null}.
+     */
+    public Entry get(String str) {
+        return this.entries.get(str);
     }
 
     /**
      * Checks if the list contains an entry with the specified term.
-     * 
+     *
      * @param str The primary term to check.
      * @return {@code true} if an entry with the specified term is in the list; otherwise, {@code false}.
      */
     public boolean contains(String str) {
-        return contains(new Entry(str));
+        return this.entries.containsKey(str);
+    }
+
+    /**
+     * Checks if the list contains the specified entry, or an entry with the specified term.
+     *
+     * @param o The {@link Entry} or primary term to check.
+     * @return {@code true} if a matching entry is in the list; otherwise, {@code false}.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof Entry) {
+            return this.entries.containsKey(((Entry) o).str);
+        }
+        return this.entries.containsKey(o);
+    }
+
+    /**
+     * Adds an {@link Entry} to the end of the list, unless an entry with the same term is already present.
+     *
+     * @param entry The entry to add.
+     * @return {@code true} if the entry was added; otherwise, {@code false}.
+     */
+    @Override
+    public boolean add(Entry entry) {
+        if (this.entries.containsKey(entry.str)) {
+            return false;
+        }
+        this.entries.put(entry.str, entry);
+        return true;
     }
 
     /**
      * Adds a new {@link Entry} with the specified term to the list.
-     * 
+     *
      * @param str The primary term for the new entry.
      */
     public void add(String str) {
@@ -50,23 +86,89 @@ public class EntryList extends ArrayList<Entry> {
 
     /**
      * Removes the {@link Entry} with the specified term from the list.
-     * 
+     *
      * @param str The primary term of the entry to remove.
      */
     public void remove(String str) {
-        remove(new Entry(str));
+        this.entries.remove(str);
+    }
+
+    /**
+     * Removes the specified entry, or the entry with the specified term, from the list.
+     *
+     * @param o The {@link Entry} or primary term to remove.
+     * @return {@code true} if an entry was removed; otherwise, {@code false}.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o instanceof Entry) {
+            return this.entries.remove(((Entry) o).str) != null;
+        }
+        return this.entries.remove(o) != null;
+    }
+
+    /**
+     * Changes the primary term of an entry, keeping its position in the list.
+     * <p>
+     * If another entry already has the new term, the two entries are merged: the renamed entry takes over
+     * the synonyms of the other entry that it does not have yet, after its own, and the other entry is
+     * removed. Renames are rare, so the index is simply rebuilt in order.
+     * </p>
+     *
+     * @param oldStr The current primary term of the entry.
+     * @param newStr The new primary term of the entry.
+     * @return The renamed {@link Entry}, or {@code null} if no entry has the old term.
+     */
+    public Entry rename(String oldStr, String newStr) {
+        Entry entry = this.entries.get(oldStr);
+        if (entry == null) {
+            return null;
+        }
+        if (oldStr.equals(newStr)) {
+            return entry;
+        }
+
+        Entry duplicate = this.entries.get(newStr);
+        if (duplicate != null) {
+            for (String synonym : duplicate.synonyms) {
+                if (!entry.synonyms.contains(synonym)) {
+                    entry.synonyms.add(synonym);
+                }
+            }
+        }
+
+        ArrayList<Entry> ordered = new ArrayList<>(this.entries.values());
+        entry.str = newStr;
+        this.entries.clear();
+        for (Entry e : ordered) {
+            if (e != duplicate) {
+                add(e);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public Iterator<Entry> iterator() {
+        return this.entries.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public void clear() {
+        this.entries.clear();
     }
 
     /**
      * Converts the list of {@link Entry} objects to a list of primary terms.
-     * 
+     *
      * @return An {@link ArrayList} of primary terms.
      */
     public ArrayList<String> toStr() {
-        ArrayList<String> strList = new ArrayList<>();
-        for (Entry entry : this) {
-            strList.add(entry.str);
-        }
-        return strList;
+        return new ArrayList<>(this.entries.keySet());
     }
 }
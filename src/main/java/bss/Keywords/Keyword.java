@@ -47,6 +47,21 @@ public abstract class Keyword {
         this.tf.putAll(kw.tf);
     }
 
+    /**
+     * Constructs a Keyword from tokens that were computed earlier, without tokenizing the query again.
+     *
+     * @param query the keyword query, already in lower case
+     * @param tokens the tokens of the query
+     * @param categorizedTokens the tokens of the query by category
+     * @param tf the term frequencies of the tokens
+     */
+    protected Keyword(String query, List<String> tokens, LinkedHashMap<Categories, List<String>> categorizedTokens, Map<String, Double> tf) {
+        this.query = query;
+        this.tokens = tokens;
+        this.categorizedTokens = categorizedTokens;
+        this.tf = tf;
+    }
+
     /**
      * Constructs a Keyword with product-specific details.
      * 
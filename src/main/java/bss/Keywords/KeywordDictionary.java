@@ -1,7 +1,10 @@
 package bss.Keywords;
 
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -16,7 +19,7 @@ import bss.Data.DataAccess;
 import edu.stanford.nlp.util.StringUtils;
 
 public class KeywordDictionary {
-    // private static KeywordDictionary instance = null;
+    private static KeywordDictionary instance = null;
     LinkedHashMap<Categories, ListOrderedMap<String, ArrayList<String>>> dict;
     ArrayList<String> unclassified;
     ArrayList<String> filler;
@@ -145,7 +148,7 @@ public class KeywordDictionary {
     }
 
     public void updateDict() {
-        try (FileWriter fw = new FileWriter(DataAccess.getPath("dictionary.json"))) {
+        try (Writer fw = new OutputStreamWriter(new FileOutputStream(DataAccess.getPath("dictionary.json")), StandardCharsets.UTF_8)) {
             this.words = null;
             this.entryList = null;
             GsonBuilder gsonBuilder = new GsonBuilder();
@@ -326,7 +329,7 @@ public class KeywordDictionary {
             kw.computeTF();
         }
 
-        DataAccess.writeToJson("testData", kwList);
+        DataAccess.writeSearchTerms("testData", kwList);
     }
 
     public boolean isSynonym(String s1, String s2, Categories category) {
@@ -379,33 +382,23 @@ public class KeywordDictionary {
         }
     }
 
-    // public static KeywordDictionary getInstance() {
-    //     if (KeywordDictionary.instance == null) {
-    //         KeywordDictionary.instance = DataAccess.getDictionary();
-    //         // for (Category c : KeywordDictionary.instance.dict.keySet()) {
-    //         //     for (String entry : KeywordDictionary.instance.dict.get(c).keySet()) {
-    //         //         c.addEntry(entry);
-    //         //         for (String s : KeywordDictionary.instance.dict.get(c).get(entry)) {
-    //         //             c.addSynonym(entry, s);
-    //         //         }
-    //         //     }
-    //         //     c.updateFile();
-    //         // }
-
-    //         //KeywordDictionary.instance.unclassified = new ArrayList<>();
-    //         KeywordDictionary.instance.retrieveWordList();
-
-    //         ArrayList<String> arr = new ArrayList<>();
-    //         for (String s : KeywordDictionary.instance.unclassified) {
-    //             if (!KeywordDictionary.instance.words.contains(s)) {
-    //                 arr.add(s);
-    //             }
-    //         }
-
-    //         KeywordDictionary.instance.entryList = KeywordDictionary.instance.getAllEntries();
-    //         //System.out.println(arr);
-            
-    //     }
-    //     return KeywordDictionary.instance;
-    // }
+    public static KeywordDictionary getInstance() {
+        if (KeywordDictionary.instance == null) {
+            KeywordDictionary.instance = DataAccess.getDictionary();
+            // for (Category c : KeywordDictionary.instance.dict.keySet()) {
+            //     for (String entry : KeywordDictionary.instance.dict.get(c).keySet()) {
+            //         c.addEntry(entry);
+            //         for (String s : KeywordDictionary.instance.dict.get(c).get(entry)) {
+            //             c.addSynonym(entry, s);
+            //         }
+            //     }
+            //     c.updateFile();
+            // }
+
+            //KeywordDictionary.instance.unclassified = new ArrayList<>();
+
+            KeywordDictionary.instance.entryList = KeywordDictionary.instance.getAllEntries();
+        }
+        return KeywordDictionary.instance;
+    }
 }
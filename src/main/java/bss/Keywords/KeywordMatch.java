@@ -101,15 +101,18 @@ public class KeywordMatch extends Keyword {
      * 
      * @param categoryWeights A map of category weights.
      * @param attributeWeights A map of attribute weights.
+     * @return True if any term frequency was changed, otherwise false.
      */
-    public void weightTF(HashMap<Categories, Double> categoryWeights, HashMap<String, Double> attributeWeights) {
+    public boolean weightTF(HashMap<Categories, Double> categoryWeights, HashMap<String, Double> attributeWeights) {
         //System.out.println(this.keyword);
         //System.out.println(this.tf);
+        boolean weighted = false;
         for (Categories c : this.categorizedTokens.keySet()) {
             if (categoryWeights.containsKey(c)) {
                 for (String token : this.categorizedTokens.get(c)) {
                     if (!c.containsSynonym(toMatch.getCategorizedTokens().get(c), token)) {
                         this.tf.replace(token, this.tf.get(token) - categoryWeights.get(c));
+                        weighted |= categoryWeights.get(c) != 0;
                         //System.out.println(this.tf.get(token));
                     }
                 }
@@ -134,16 +137,19 @@ public class KeywordMatch extends Keyword {
                     }
                     else {
                         this.tf.replace(token, this.tf.get(token) - biggestWeight);
+                        weighted |= biggestWeight != 0;
                     }
                 }
             }
             else if (c == Categories.OTHER) {
                 for (String token : this.categorizedTokens.get(c)) {
                     this.tf.replace(token, this.tf.get(token) - 0.3);
+                    weighted = true;
                 }
             }
         }
         //System.out.println(this.tf);
+        return weighted;
     }
 
     /**
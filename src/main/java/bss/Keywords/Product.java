@@ -3,8 +3,6 @@ package bss.Keywords;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import edu.stanford.nlp.ling.CoreLabel;
-
 /**
  * Represents a product with a description and additional attributes.
  */
@@ -39,17 +37,14 @@ public class Product extends Keyword {
      */
     @Override
     public void tokenize() {
-        this.tokens = new ArrayList<>();
-
-        ArrayList<CoreLabel> annotatedTokens = Tokenizer.createAnnotatedTokens(this.query);
-        this.tokens = Tokenizer.extractTokensWithLemmas(annotatedTokens);
+        TokenList tokenList = TokenList.extract(Tokenizer.annotate(this.query));
 
-        if (this.tokens.contains("blue") && this.tokens.contains("summit")) {
-            this.tokens.remove("blue");
-            this.tokens.remove("summit");
+        if (tokenList.contains("blue") && tokenList.contains("summit")) {
+            tokenList.remove("blue");
+            tokenList.remove("summit");
         }
 
-        this.tokens = Categories.replaceSynonyms(this.tokens);
+        Categories.replaceSynonyms(tokenList);
         // HashMap<Category, HashMap<ArrayList<String>, String>> possibleMatches = Tokenizer.identifyPossibleMatches(this.tokens);
         // HashMap<String, ArrayList<ArrayList<String>>> matchesPerToken = new LinkedHashMap<>(); // keys = tokens, values = list of possible token groupings that can form a dict entry
         // // initialize list for each token
@@ -150,7 +145,7 @@ public class Product extends Keyword {
         //     }
         // }
 
-        this.tokens = Tokenizer.removeExtraneousTokens(annotatedTokens, this.tokens);
+        this.tokens = tokenList.removeExtraneousTokens().toStrings();
 
         this.categorizeTokens();
     }
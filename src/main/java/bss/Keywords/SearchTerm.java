@@ -1,10 +1,10 @@
 package bss.Keywords;
 
 import java.util.ArrayList;
-
-import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.util.StringUtils;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a search term that a user has entered, used for searching on Amazon.
@@ -82,6 +82,38 @@ public class SearchTerm extends Keyword {
         this.cvr = (double) orders / clicks;
     }
 
+    /**
+     * Constructs a SearchTerm from stored fields and tokens, without tokenizing the query again.
+     * 
+     * @param query The user's search query, already in lower case.
+     * @param tokens The tokens of the query.
+     * @param categorizedTokens The tokens of the query by category.
+     * @param tf The term frequencies of the tokens.
+     * @param keyword The keyword text for the search term.
+     * @param campaignName The name of the campaign associated with the search term.
+     * @param keywordMatchType The match type for the keyword.
+     * @param adGroupName The name of the ad group associated with the search term.
+     * @param clicks The number of clicks associated with the search term.
+     * @param cost The total cost associated with the search term.
+     * @param sales The total sales attributed to the search term.
+     * @param orders The number of orders attributed to the search term.
+     * @param impressions The number of impressions associated with the search term.
+     * @param cvr The conversion rate (orders divided by clicks).
+     */
+    public SearchTerm(String query, List<String> tokens, LinkedHashMap<Categories, List<String>> categorizedTokens, Map<String, Double> tf, String keyword, String campaignName, String keywordMatchType, String adGroupName, int clicks, double cost, double sales, int orders, int impressions, double cvr) {
+        super(query, tokens, categorizedTokens, tf);
+        this.keyword = keyword;
+        this.campaignName = campaignName;
+        this.keywordMatchType = keywordMatchType;
+        this.adGroupName = adGroupName;
+        this.clicks = clicks;
+        this.cost = cost;
+        this.sales = sales;
+        this.orders = orders;
+        this.impressions = impressions;
+        this.cvr = cvr;
+    }
+
     /**
      * Copy constructor to create a new SearchTerm from an existing one.
      * 
@@ -107,6 +139,69 @@ public class SearchTerm extends Keyword {
         super(productType, dimensions, color, quantity, material, attributes);
     }
 
+    /**
+     * Gets the keyword text for the search term.
+     * 
+     * @return The keyword text.
+     */
+    public String getKeywordText() {
+        return this.keyword;
+    }
+
+    /**
+     * Gets the name of the campaign associated with the search term.
+     * 
+     * @return The campaign name.
+     */
+    public String getCampaignName() {
+        return this.campaignName;
+    }
+
+    /**
+     * Gets the match type for the keyword.
+     * 
+     * @return The match type.
+     */
+    public String getKeywordMatchType() {
+        return this.keywordMatchType;
+    }
+
+    /**
+     * Gets the name of the ad group associated with the search term.
+     * 
+     * @return The ad group name.
+     */
+    public String getAdGroupName() {
+        return this.adGroupName;
+    }
+
+    /**
+     * Gets the number of clicks associated with the search term.
+     * 
+     * @return The number of clicks.
+     */
+    public int getClicks() {
+        return this.clicks;
+    }
+
+    /**
+     * Gets the total cost associated with the search term.
+     * 
+     * @return The total cost.
+     */
+    public double getCost() {
+        return this.cost;
+    }
+
+    /**
+     * Gets the total sales attributed to the search term.
+     * 
+     * @return The total sales.
+     */
+    public double getSales() {
+        return this.sales;
+    }
+
     /**
      * Gets the number of orders attributed to the search term.
      * 
@@ -116,6 +211,15 @@ public class SearchTerm extends Keyword {
         return this.orders;
     }
 
+    /**
+     * Gets the number of impressions associated with the search term.
+     * 
+     * @return The number of impressions.
+     */
+    public int getImpressions() {
+        return this.impressions;
+    }
+
     /**
      * Gets the conversion rate, calculated as orders divided by clicks.
      * 
@@ -134,77 +238,44 @@ public class SearchTerm extends Keyword {
      */
     @Override
     public void tokenize() {
-        this.tokens = new ArrayList<>();
+        tokenize(TokenList.extract(Tokenizer.annotate(this.query)));
+    }
 
-        ArrayList<CoreLabel> annotatedTokens = Tokenizer.createAnnotatedTokens(this.query);
-        
-        for (CoreLabel at : annotatedTokens) {
-            if (at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CD")) {
-                Object num = at.get(CoreAnnotations.NumericValueAnnotation.class);
-                if (num != null) {
-                    if (num instanceof Integer) {
-                        this.tokens.add(Integer.toString((int) num));
-                    }
-                    else if (num instanceof Long) {
-                        this.tokens.add(Long.toString((Long) num));
-                    }
-                    else if (num instanceof Double) {
-                        this.tokens.add(Double.toString((Double) num));
-                    }
-                    else {
-                        this.tokens.add(at.value());
-                        if (!at.lemma().equals(at.value())) {
-                            this.tokens.add(at.lemma());
-                        }
-                    }
-                }
-                else {
-                    this.tokens.add(at.value());
-                        if (!at.lemma().equals(at.value())) {
-                            this.tokens.add(at.lemma());
-                        }
-                }
-            }
-            else {
-                this.tokens.add(at.value());
-                    if (!at.lemma().equals(at.value())) {
-                        this.tokens.add(at.lemma());
-                    }
-            }
-            //if (token.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CD")) {
-            //    System.out.println(token.lemma() + "\t" + token.get(CoreAnnotations.PartOfSpeechAnnotation.class) + "\t" + this.query);
-            //}
-        }
+    /**
+     * Creates a copy of this search term tokenized again, for instance after the dictionary has changed.
+     * <p>
+     * This search term is left unchanged, so threads that are still reading it see consistent tokens.
+     * </p>
+     * 
+     * @return The retokenized copy.
+     */
+    public SearchTerm retokenized() {
+        SearchTerm copy = new SearchTerm(this.query, this.tokens, this.categorizedTokens, this.tf, this.keyword, this.campaignName, this.keywordMatchType, this.adGroupName, this.clicks, this.cost, this.sales, this.orders, this.impressions, this.cvr);
+        copy.tokenize();
+        copy.computeTF();
+        return copy;
+    }
+
+    /**
+     * Processes tokens extracted from the annotated query: replaces synonyms, removes extraneous tokens and
+     * categorizes the rest.
+     * <p>
+     * This is the part of {@link #tokenize()} that runs after CoreNLP, so that callers which annotate
+     * queries separately, such as an upload pipeline, can finish tokenizing on another thread.
+     * </p>
+     * 
+     * @param tokenList The tokens extracted from the annotated query, which are modified.
+     */
+    public void tokenize(TokenList tokenList) {
         //SimpleTokenizer tokenizer = SimpleTokenizer.INSTANCE;
         //this.tokens.addAll((List<String>) Arrays.asList(tokenizer.tokenize(kw.toLowerCase())));
-        //System.out.println(this.tokens);
-        Categories.replaceSynonyms(this.tokens);
+        Categories.replaceSynonyms(tokenList);
         
         //initializeCategorizedTokens();
         //System.out.println(this.tokens);
 
-        for (CoreLabel at : annotatedTokens) {
-            // CC and &     DT the no   IN with on fo w for at re in up     POS '   RP up   SYM + x ?   TO to
-            if (at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CC") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("DT") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("IN") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("POS") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("RP") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("SYM") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("TO")) {
-                //System.out.println(at.lemma() + "\t" + at.get(CoreAnnotations.PartOfSpeechAnnotation.class) + "\t" + this.query);
-                this.tokens.remove(at.lemma());
-            }
-            if (!at.lemma().equals(at.value())) {
-                if (!this.tokens.contains(at.value())) {
-                    this.tokens.remove(at.lemma());
-                }
-                this.tokens.remove(at.value());
-            }
-        }
-
-        for (String token : new ArrayList<>(this.tokens)) {
-            if (token.length() <= 1 && !StringUtils.isNumeric(token) && !token.equals("x")) {
-                this.tokens.remove(token);
-            }
-            else if (token.equals(".")) {
-                this.tokens.remove(token);
-            }
-        }
+        this.tokens = tokenList.removeExtraneousTokens().toStrings();
+        this.tokens.removeAll(Collections.singleton("."));
 
         this.categorizeTokens();
     }
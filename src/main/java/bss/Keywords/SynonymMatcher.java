@@ -0,0 +1,254 @@
+package bss.Keywords;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * The dictionary synonyms compiled into an index of their short substrings, used by
+ * {@link Categories#replaceSynonyms(java.util.List)} to find the synonyms a token can be part of.
+ * <p>
+ * A synonym is only affected by a token if the token occurs somewhere inside it, either as written or with
+ * its spaces removed. Every synonym is indexed under each substring of up to {@code GRAM_LENGTH}
+ * characters, so the synonyms containing a token are found by looking up its rarest substring and
+ * checking only those. Synonyms are numbered in the order {@code replaceSynonyms} visits them, so the
+ * candidates can be processed in that same order.
+ * </p>
+ */
+public class SynonymMatcher {
+
+    /** Length of the longest substrings the synonyms are indexed under. */
+    static final int GRAM_LENGTH = 3;
+
+    /** Matcher for the current dictionary, or null if it has not been compiled yet. */
+    static volatile SynonymMatcher instance = null;
+
+    /** Version of the dictionary this matcher was compiled from. */
+    final int dictionaryVersion;
+
+    /** Category of each synonym, indexed by synonym id. */
+    final Categories[] categories;
+
+    /** Entry of each synonym, indexed by synonym id. */
+    final Entry[] entries;
+
+    /** Each synonym as written, indexed by synonym id. */
+    final String[] synonyms;
+
+    /** Each synonym with its spaces removed, indexed by synonym id. */
+    final String[] compactSynonyms;
+
+    /** Ids of the synonyms containing each substring of up to {@code GRAM_LENGTH} characters, in ascending order. */
+    final HashMap<String, int[]> grams;
+
+    /** Ids of the synonyms made up only of separators, which match regardless of the tokens. */
+    final int[] separatorSynonyms;
+
+    /**
+     * Compiles the synonyms of every category that {@code replaceSynonyms} matches against.
+     */
+    private SynonymMatcher() {
+        this.dictionaryVersion = Categories.getVersion();
+
+        ArrayList<Categories> categoryList = new ArrayList<>();
+        ArrayList<Entry> entryList = new ArrayList<>();
+        ArrayList<String> synonymList = new ArrayList<>();
+        for (Categories c : Categories.getValues()) {
+            if (c == Categories.PRODUCT_CATEGORY) {
+                continue;
+            }
+            for (Entry entry : c.entries) {
+                for (String s : entry.synonyms) {
+                    categoryList.add(c);
+                    entryList.add(entry);
+                    synonymList.add(s);
+                }
+            }
+        }
+        this.categories = categoryList.toArray(new Categories[0]);
+        this.entries = entryList.toArray(new Entry[0]);
+        this.synonyms = synonymList.toArray(new String[0]);
+        this.compactSynonyms = new String[this.synonyms.length];
+
+        HashMap<String, ArrayList<Integer>> gramLists = new HashMap<>();
+        ArrayList<Integer> separatorList = new ArrayList<>();
+        for (int id = 0; id < this.synonyms.length; id++) {
+            this.compactSynonyms[id] = this.synonyms[id].replaceAll(" ", "");
+            if (SynonymMatcher.stripSeparators(this.synonyms[id]).equals("")) {
+                separatorList.add(id);
+            }
+            addGrams(gramLists, this.synonyms[id], id);
+            addGrams(gramLists, this.compactSynonyms[id], id);
+        }
+
+        this.grams = new HashMap<>();
+        for (String gram : gramLists.keySet()) {
+            this.grams.put(gram, SynonymMatcher.toArray(gramLists.get(gram)));
+        }
+        this.separatorSynonyms = SynonymMatcher.toArray(separatorList);
+    }
+
+    /**
+     * Indexes a synonym under each of its substrings of up to {@code GRAM_LENGTH} characters.
+     *
+     * @param gramLists the synonym ids of each substring, built in ascending order
+     * @param s the synonym
+     * @param id the synonym id
+     */
+    private static void addGrams(HashMap<String, ArrayList<Integer>> gramLists, String s, int id) {
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= s.length(); i++) {
+                String gram = s.substring(i, i + length);
+                ArrayList<Integer> ids = gramLists.get(gram);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    gramLists.put(gram, ids);
+                }
+                if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                    ids.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a list of ids to an array.
+     *
+     * @param ids the ids
+     * @return the ids as an array
+     */
+    private static int[] toArray(ArrayList<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Removes the separators that {@code replaceSynonyms} ignores once the tokens of a synonym are matched.
+     *
+     * @param s the string to strip
+     * @return the string without spaces, hyphens, commas or quotes
+     */
+    static String stripSeparators(String s) {
+        s = s.replaceAll(" ", "");
+        s = s.replaceAll("-", "");
+        s = s.replaceAll(",", "");
+        s = s.replaceAll("\"", "");
+        return s;
+    }
+
+    /**
+     * Gets the number of compiled synonyms.
+     *
+     * @return the number of synonyms
+     */
+    public int size() {
+        return this.synonyms.length;
+    }
+
+    /**
+     * Gets the category of a synonym.
+     *
+     * @param id the synonym id
+     * @return the category the synonym belongs to
+     */
+    public Categories getCategory(int id) {
+        return this.categories[id];
+    }
+
+    /**
+     * Gets the entry of a synonym.
+     *
+     * @param id the synonym id
+     * @return the entry the synonym belongs to
+     */
+    public Entry getEntry(int id) {
+        return this.entries[id];
+    }
+
+    /**
+     * Gets a synonym as written.
+     *
+     * @param id the synonym id
+     * @return the synonym
+     */
+    public String getSynonym(int id) {
+        return this.synonyms[id];
+    }
+
+    /**
+     * Creates the set of synonyms that can be matched from the given tokens.
+     *
+     * @param tokens the tokens to match
+     * @return the ids of the candidate synonyms, in the order they should be visited
+     */
+    public TreeSet<Integer> getCandidates(Iterable<String> tokens) {
+        TreeSet<Integer> candidates = new TreeSet<>();
+        for (int id : this.separatorSynonyms) {
+            candidates.add(id);
+        }
+        for (String t : tokens) {
+            addCandidates(candidates, t, 0);
+        }
+        return candidates;
+    }
+
+    /**
+     * Adds the synonyms that contain a token, either as written or with their spaces removed.
+     *
+     * @param candidates the ids of the candidate synonyms
+     * @param t the token
+     * @param from the lowest synonym id to add
+     */
+    public void addCandidates(TreeSet<Integer> candidates, String t, int from) {
+        if (t.isEmpty()) {
+            // every synonym contains the empty string
+            for (int id = from; id < this.synonyms.length; id++) {
+                candidates.add(id);
+            }
+            return;
+        }
+
+        // look the token up under its rarest substring, then check each synonym found
+        int[] ids = null;
+        int length = Math.min(t.length(), GRAM_LENGTH);
+        for (int i = 0; i + length <= t.length(); i++) {
+            int[] gramIds = this.grams.get(t.substring(i, i + length));
+            if (gramIds == null) {
+                return;
+            }
+            if (ids == null || gramIds.length < ids.length) {
+                ids = gramIds;
+            }
+        }
+        for (int id : ids) {
+            if (id >= from && (t.length() <= GRAM_LENGTH || this.synonyms[id].contains(t) || this.compactSynonyms[id].contains(t))) {
+                candidates.add(id);
+            }
+        }
+    }
+
+    /**
+     * Returns the matcher for the current dictionary.
+     * <p>
+     * The matcher is recompiled if the dictionary has changed since it was last compiled.
+     * </p>
+     *
+     * @return the singleton instance of SynonymMatcher
+     */
+    public static SynonymMatcher getInstance() {
+        SynonymMatcher matcher = SynonymMatcher.instance;
+        if (matcher == null || matcher.dictionaryVersion != Categories.getVersion()) {
+            synchronized (SynonymMatcher.class) {
+                matcher = SynonymMatcher.instance;
+                if (matcher == null || matcher.dictionaryVersion != Categories.getVersion()) {
+                    matcher = new SynonymMatcher();
+                    SynonymMatcher.instance = matcher;
+                }
+            }
+        }
+        return matcher;
+    }
+}
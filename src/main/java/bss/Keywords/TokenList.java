@@ -0,0 +1,220 @@
+package bss.Keywords;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+
+import edu.stanford.nlp.util.StringUtils;
+
+/**
+ * The tokens of one query, each remembering which annotated token of the query it came from.
+ * <p>
+ * A token list starts out with the text, lemma or numeric value of every token of an
+ * {@link AnnotatedQuery} and can be passed to {@link Categories#replaceSynonyms(java.util.List)} like
+ * any other list of strings. Tokens added there are dictionary entries and come from no annotated token.
+ * Because every remaining token still knows its source, {@link #removeExtraneousTokens()} can drop the
+ * tokens of a particular word in one pass instead of searching the list for a string that may belong to
+ * a different word.
+ * </p>
+ */
+public class TokenList extends AbstractList<String> {
+
+    /** Source of tokens that do not come from an annotated token, such as dictionary entries. */
+    static final int NO_SOURCE = -1;
+
+    /** The annotated query the tokens were extracted from. */
+    final AnnotatedQuery query;
+
+    /** The tokens, in order. */
+    final ArrayList<String> tokens;
+
+    /** Position in the query of the annotated token each token came from, or {@link #NO_SOURCE}. */
+    final ArrayList<Integer> sources;
+
+    /**
+     * Constructs an empty TokenList for an annotated query.
+     *
+     * @param query the annotated query
+     */
+    TokenList(AnnotatedQuery query) {
+        this.query = query;
+        this.tokens = new ArrayList<>();
+        this.sources = new ArrayList<>();
+    }
+
+    /**
+     * Extracts the tokens of an annotated query.
+     * <p>
+     * Numbers are added as their numeric value. Any other word is added as its text, followed by its lemma
+     * if the lemma differs.
+     * </p>
+     *
+     * @param query the annotated query
+     * @return the tokens of the query
+     */
+    public static TokenList extract(AnnotatedQuery query) {
+        TokenList tokenList = new TokenList(query);
+        for (int i = 0; i < query.size(); i++) {
+            if (isNumber(query, i)) {
+                tokenList.addFrom(query.numbers[i], i);
+            }
+            else {
+                tokenList.addFrom(query.values[i], i);
+                if (!query.lemmas[i].equals(query.values[i])) {
+                    tokenList.addFrom(query.lemmas[i], i);
+                }
+            }
+        }
+        return tokenList;
+    }
+
+    /**
+     * Checks whether an annotated token is extracted as its numeric value.
+     *
+     * @param query the annotated query
+     * @param i the position of the annotated token
+     * @return true if the token is a number with a numeric value
+     */
+    static boolean isNumber(AnnotatedQuery query, int i) {
+        return query.tags[i].equals("CD") && query.numbers[i] != null;
+    }
+
+    /**
+     * Checks whether an annotated token is a function word that is never kept as a token.
+     * <p>
+     * CC and &amp;, DT the no, IN with on for at in, POS ', RP up, SYM + x ?, TO to
+     * </p>
+     *
+     * @param tag the part-of-speech tag of the token
+     * @return true if tokens with this tag are removed
+     */
+    static boolean isExtraneous(String tag) {
+        switch (tag) {
+            case "CC":
+            case "DT":
+            case "IN":
+            case "POS":
+            case "RP":
+            case "SYM":
+            case "TO":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks whether a token is too short to be meaningful.
+     *
+     * @param token the token
+     * @return true if the token is a single character other than a digit or "x"
+     */
+    static boolean isShort(String token) {
+        return token.length() <= 1 && !StringUtils.isNumeric(token) && !token.equals("x");
+    }
+
+    /**
+     * Adds a token that came from an annotated token.
+     *
+     * @param token the token
+     * @param source the position of the annotated token in the query
+     */
+    void addFrom(String token, int source) {
+        this.tokens.add(token);
+        this.sources.add(source);
+        this.modCount++;
+    }
+
+    /**
+     * Removes function words, unneeded word forms and short tokens.
+     * <p>
+     * Every token of a function word is removed. A word whose lemma differs from its text is kept as its
+     * lemma, unless its text was already replaced by a dictionary entry, in which case its lemma is removed
+     * as well. Finally every short token is removed, whichever word it came from.
+     * </p>
+     *
+     * @return this token list
+     */
+    public TokenList removeExtraneousTokens() {
+        // which words still have their text as a token
+        boolean[] hasValue = new boolean[this.query.size()];
+        for (int j = 0; j < this.tokens.size(); j++) {
+            int i = this.sources.get(j);
+            if (i != NO_SOURCE && !isNumber(this.query, i) && this.tokens.get(j).equals(this.query.values[i])) {
+                hasValue[i] = true;
+            }
+        }
+
+        int kept = 0;
+        for (int j = 0; j < this.tokens.size(); j++) {
+            String token = this.tokens.get(j);
+            int i = this.sources.get(j);
+            boolean keep = !isShort(token);
+            if (keep && i != NO_SOURCE) {
+                if (isExtraneous(this.query.tags[i])) {
+                    keep = false;
+                }
+                else if (!isNumber(this.query, i) && !this.query.lemmas[i].equals(this.query.values[i])) {
+                    keep = token.equals(this.query.lemmas[i]) && hasValue[i];
+                }
+            }
+            if (keep) {
+                this.tokens.set(kept, token);
+                this.sources.set(kept, i);
+                kept++;
+            }
+        }
+        this.tokens.subList(kept, this.tokens.size()).clear();
+        this.sources.subList(kept, this.sources.size()).clear();
+        this.modCount++;
+        return this;
+    }
+
+    /**
+     * Copies the tokens into a plain list.
+     *
+     * @return a new list of the tokens
+     */
+    public ArrayList<String> toStrings() {
+        return new ArrayList<>(this.tokens);
+    }
+
+    @Override
+    public String get(int index) {
+        return this.tokens.get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.tokens.size();
+    }
+
+    @Override
+    public String set(int index, String token) {
+        this.sources.set(index, NO_SOURCE);
+        return this.tokens.set(index, token);
+    }
+
+    @Override
+    public void add(int index, String token) {
+        this.tokens.add(index, token);
+        this.sources.add(index, NO_SOURCE);
+        this.modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        this.sources.remove(index);
+        this.modCount++;
+        return this.tokens.remove(index);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return this.tokens.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return this.tokens.indexOf(o);
+    }
+}
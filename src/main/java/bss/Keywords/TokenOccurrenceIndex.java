@@ -0,0 +1,95 @@
+package bss.Keywords;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * An index from tokens to the keywords they occur in, used to find the keywords a dictionary change can
+ * affect.
+ * <p>
+ * {@code replaceSynonyms} only matches a synonym against tokens the synonym contains, either as written
+ * or with its spaces removed, and categorization only looks up whole tokens. A keyword can therefore
+ * only tokenize differently after a change if one of its tokens, before or after synonym replacement, is
+ * a substring of a changed entry or synonym, so both sets of tokens should be added. Synonyms made up
+ * only of separators match any keyword.
+ * </p>
+ */
+public class TokenOccurrenceIndex {
+
+    /** Ids of the keywords each token occurs in, in the order they were added. */
+    final HashMap<String, ArrayList<Integer>> occurrences;
+
+    /** One more than the largest keyword id added. */
+    int size;
+
+    /**
+     * Constructs an empty TokenOccurrenceIndex.
+     */
+    public TokenOccurrenceIndex() {
+        this.occurrences = new HashMap<>();
+        this.size = 0;
+    }
+
+    /**
+     * Records that a keyword contains the given tokens.
+     * <p>
+     * Tokens are never removed, so a keyword stays listed under tokens it no longer has. This only makes
+     * {@link #getAffected(Iterable)} return a few more keywords than necessary.
+     * </p>
+     *
+     * @param id the keyword id
+     * @param tokens the tokens of the keyword
+     */
+    public void add(int id, Iterable<String> tokens) {
+        for (String token : tokens) {
+            ArrayList<Integer> ids = this.occurrences.get(token);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                this.occurrences.put(token, ids);
+            }
+            if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                ids.add(id);
+            }
+        }
+        this.size = Math.max(this.size, id + 1);
+    }
+
+    /**
+     * Finds the keywords that may tokenize differently after the given strings were changed in the dictionary.
+     *
+     * @param changed the entries and synonyms that were added, removed or renamed
+     * @return the ids of the affected keywords
+     */
+    public BitSet getAffected(Iterable<String> changed) {
+        BitSet affected = new BitSet(this.size);
+        for (String s : changed) {
+            if (SynonymMatcher.stripSeparators(s).equals("")) {
+                affected.set(0, this.size);
+                return affected;
+            }
+            addSubstrings(affected, s);
+            addSubstrings(affected, s.replaceAll(" ", ""));
+        }
+        return affected;
+    }
+
+    /**
+     * Marks the keywords containing a token that is a substring of a string.
+     *
+     * @param affected the affected keyword ids
+     * @param s the string
+     */
+    void addSubstrings(BitSet affected, String s) {
+        for (int begin = 0; begin < s.length(); begin++) {
+            for (int end = begin + 1; end <= s.length(); end++) {
+                ArrayList<Integer> ids = this.occurrences.get(s.substring(begin, end));
+                if (ids != null) {
+                    for (int id : ids) {
+                        affected.set(id);
+                    }
+                }
+            }
+        }
+    }
+}
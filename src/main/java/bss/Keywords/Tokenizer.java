@@ -3,15 +3,9 @@ package bss.Keywords;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Properties;
 
 import bss.Data.DataAccess;
-import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
-import edu.stanford.nlp.util.CoreMap;
-import edu.stanford.nlp.util.StringUtils;
 
 /**
  * Provides methods for tokenizing and processing keywords using Stanford CoreNLP.
@@ -20,13 +14,82 @@ import edu.stanford.nlp.util.StringUtils;
  */
 public class Tokenizer {
 
-    /** The Stanford CoreNLP pipeline for natural language processing. */
-    private static final StanfordCoreNLP pipeline;
+    /** Profile used to annotate queries in bulk operations such as uploads and retokenizing. */
+    private static volatile AnnotationProfile bulkProfile = AnnotationProfile.FAST;
 
-    static {
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-        pipeline = new StanfordCoreNLP(props);
+    /** Profile used to annotate queries outside of bulk operations. */
+    private static volatile AnnotationProfile interactiveProfile = AnnotationProfile.FULL;
+
+    /** Profile selected for the operation running on each thread, or null outside of bulk operations. */
+    private static final ThreadLocal<AnnotationProfile> activeProfile = new ThreadLocal<>();
+
+    /**
+     * Gets the profile used to annotate queries in bulk operations.
+     * 
+     * @return The bulk annotation profile.
+     */
+    public static AnnotationProfile getBulkProfile() {
+        return Tokenizer.bulkProfile;
+    }
+
+    /**
+     * Sets the profile used to annotate queries in bulk operations.
+     * 
+     * @param profile The bulk annotation profile.
+     */
+    public static void setBulkProfile(AnnotationProfile profile) {
+        Tokenizer.bulkProfile = profile;
+    }
+
+    /**
+     * Gets the profile used to annotate queries outside of bulk operations.
+     * 
+     * @return The interactive annotation profile.
+     */
+    public static AnnotationProfile getInteractiveProfile() {
+        return Tokenizer.interactiveProfile;
+    }
+
+    /**
+     * Sets the profile used to annotate queries outside of bulk operations.
+     * 
+     * @param profile The interactive annotation profile.
+     */
+    public static void setInteractiveProfile(AnnotationProfile profile) {
+        Tokenizer.interactiveProfile = profile;
+    }
+
+    /**
+     * Gets the profile queries are currently annotated with on this thread.
+     * 
+     * @return The active annotation profile.
+     */
+    public static AnnotationProfile getProfile() {
+        AnnotationProfile profile = Tokenizer.activeProfile.get();
+        return profile != null ? profile : Tokenizer.interactiveProfile;
+    }
+
+    /**
+     * Selects the profile queries are annotated with on this thread.
+     * <p>
+     * Operations should restore the previous profile when they finish:
+     * </p>
+     * <pre>
+     * AnnotationProfile previous = Tokenizer.useProfile(Tokenizer.getBulkProfile());
+     * try {
+     *     ...
+     * } finally {
+     *     Tokenizer.useProfile(previous);
+     * }
+     * </pre>
+     * 
+     * @param profile The profile to use, or null to go back to the interactive profile.
+     * @return The profile that was active before.
+     */
+    public static AnnotationProfile useProfile(AnnotationProfile profile) {
+        AnnotationProfile previous = Tokenizer.activeProfile.get();
+        Tokenizer.activeProfile.set(profile);
+        return previous;
     }
 
     /**
@@ -36,17 +99,34 @@ public class Tokenizer {
      * @return A list of {@link CoreLabel} tokens annotated by Stanford CoreNLP.
      */
     public static ArrayList<CoreLabel> createAnnotatedTokens(String keyword) {
-        Annotation annotation = new Annotation(keyword);
-        pipeline.annotate(annotation);
-
-        ArrayList<CoreLabel> annotatedTokens = new ArrayList<>();
-        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
-        for (CoreMap sentence : sentences) {
-            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
-                annotatedTokens.add(token);
-            }
-        }
-        return annotatedTokens;
+        return Tokenizer.createAnnotatedTokens(keyword, Tokenizer.getProfile());
+    }
+
+    /**
+     * Creates annotated tokens for the given keyword using a specific annotation profile.
+     * <p>
+     * Queries that have been annotated before are served from the profile's {@link AnnotationCache}.
+     * </p>
+     * 
+     * @param keyword The keyword to annotate.
+     * @param profile The annotation profile to use.
+     * @return A list of {@link CoreLabel} tokens annotated by Stanford CoreNLP.
+     */
+    public static ArrayList<CoreLabel> createAnnotatedTokens(String keyword, AnnotationProfile profile) {
+        return AnnotationCache.getInstance(profile).annotate(keyword).toCoreLabels();
+    }
+
+    /**
+     * Annotates the given keyword with the active profile.
+     * <p>
+     * Queries that have been annotated before are served from the profile's {@link AnnotationCache}.
+     * </p>
+     * 
+     * @param keyword The keyword to annotate.
+     * @return The compact annotation of the keyword.
+     */
+    public static AnnotatedQuery annotate(String keyword) {
+        return AnnotationCache.getInstance(Tokenizer.getProfile()).annotate(keyword);
     }
 
     /**
@@ -56,45 +136,7 @@ public class Tokenizer {
      * @return A list of token strings with their lemmas.
      */
     public static ArrayList<String> extractTokensWithLemmas(ArrayList<CoreLabel> annotatedTokens) {
-        ArrayList<String> tokens = new ArrayList<>();
-        for (CoreLabel at : annotatedTokens) {
-            if (at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CD")) {
-                Object num = at.get(CoreAnnotations.NumericValueAnnotation.class);
-                if (num != null) {
-                    if (num instanceof Integer) {
-                        tokens.add(Integer.toString((int) num));
-                    }
-                    else if (num instanceof Long) {
-                        tokens.add(Long.toString((Long) num));
-                    }
-                    else if (num instanceof Double) {
-                        tokens.add(Double.toString((Double) num));
-                    }
-                    else {
-                        tokens.add(at.value());
-                        if (!at.lemma().equals(at.value())) {
-                            tokens.add(at.lemma());
-                        }
-                    }
-                }
-                else {
-                    tokens.add(at.value());
-                        if (!at.lemma().equals(at.value())) {
-                            tokens.add(at.lemma());
-                        }
-                }
-            }
-            else {
-                tokens.add(at.value());
-                    if (!at.lemma().equals(at.value())) {
-                        tokens.add(at.lemma());
-                    }
-            }
-            //if (token.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CD")) {
-            //    System.out.println(token.lemma() + "\t" + token.get(CoreAnnotations.PartOfSpeechAnnotation.class) + "\t" + keyword);
-            //}
-        }
-        return tokens;
+        return TokenList.extract(new AnnotatedQuery(annotatedTokens)).toStrings();
     }
 
     /**
@@ -164,36 +206,52 @@ public class Tokenizer {
     }
 
     /**
-     * Removes extraneous tokens from a list based on their part of speech and other criteria.
+     * Compares the tokens extracted by the full and fast annotation profiles.
      * 
-     * @param annotatedTokens A list of annotated tokens.
-     * @param tokens A list of token strings to filter.
-     * @return The filtered list of tokens.
+     * @param queries The queries to compare on.
+     * @return A report of how many queries and tokens differ between the two profiles, followed by up to
+     *         five of the queries that differ, one per line.
      */
-    public static List<String> removeExtraneousTokens(ArrayList<CoreLabel> annotatedTokens, List<String> tokens) {
-        for (CoreLabel at : annotatedTokens) {
-            // CC and &     DT the no   IN with on fo w for at re in up     POS '   RP up   SYM + x ?   TO to
-            if (at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("CC") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("DT") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("IN") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("POS") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("RP") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("SYM") || at.get(CoreAnnotations.PartOfSpeechAnnotation.class).equals("TO")) {
-                tokens.remove(at.lemma());
+    public static String compareProfiles(List<String> queries) {
+        int differentQueries = 0;
+        int differentTokens = 0;
+        int totalTokens = 0;
+        ArrayList<String> examples = new ArrayList<>();
+        for (String query : queries) {
+            String q = query.toLowerCase();
+            ArrayList<String> fullTokens = Tokenizer.extractTokensWithLemmas(Tokenizer.createAnnotatedTokens(q, AnnotationProfile.FULL));
+            ArrayList<String> fastTokens = Tokenizer.extractTokensWithLemmas(Tokenizer.createAnnotatedTokens(q, AnnotationProfile.FAST));
+            totalTokens += fullTokens.size();
+
+            // count the tokens the profiles do not have in common
+            ArrayList<String> onlyFast = new ArrayList<>(fastTokens);
+            int onlyFull = 0;
+            for (String token : fullTokens) {
+                if (!onlyFast.remove(token)) {
+                    onlyFull++;
+                }
             }
-            if (!at.lemma().equals(at.value())) {
-                if (!tokens.contains(at.value())) {
-                    tokens.remove(at.lemma());
+            if (onlyFull > 0 || !onlyFast.isEmpty()) {
+                differentQueries++;
+                differentTokens += Math.max(onlyFull, onlyFast.size());
+                if (examples.size() < 5) {
+                    examples.add(q + ": " + fullTokens + " -> " + fastTokens);
                 }
-                tokens.remove(at.value());
             }
         }
 
-        for (String token : new ArrayList<>(tokens)) {
-            if (token.length() <= 1 && !StringUtils.isNumeric(token) && !token.equals("x")) {
-                tokens.remove(token);
-            }
+        String report = differentQueries + " of " + queries.size() + " queries and " + differentTokens + " of " + totalTokens + " tokens differ between " + AnnotationProfile.FULL + " and " + AnnotationProfile.FAST;
+        for (String example : examples) {
+            report += "\n" + example;
         }
-        return tokens;
+        return report;
     }
 
     /**
-     * Retokenizes all keywords and writes the updated keywords to a JSON file.
+     * Retokenizes all keywords and writes the updated keywords back to the dataset.
+     * <p>
+     * Queries are annotated with the bulk profile on the {@link BatchTokenizer} worker threads.
+     * </p>
      * 
      * @throws RuntimeException If there is an error accessing or writing data.
      */
@@ -205,11 +263,13 @@ public class Tokenizer {
         //     }
         // }
 
-        for (SearchTerm kw : kwList) {
-            kw.tokenize();
-            kw.computeTF();
+        AnnotationProfile previous = Tokenizer.useProfile(Tokenizer.getBulkProfile());
+        try {
+            BatchTokenizer.tokenizeAll(kwList);
+        } finally {
+            Tokenizer.useProfile(previous);
         }
 
-        DataAccess.writeToJson("testData", kwList);
+        DataAccess.writeSearchTerms("testData", kwList);
     }
-}
+}
\ No newline at end of file
@@ -4,27 +4,35 @@ import java.awt.CardLayout;
 import java.awt.Dimension;
 
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 
 import bss.Data.DataAccess;
 import bss.GUI.MainPanel;
+import bss.GUI.StartupPanel;
 import bss.KeywordGeneration.KeywordGenerator;
 import bss.Keywords.Categories;
 import bss.Keywords.Entry;
 
 /**
  * Entry point for the application, sets up the main application window
+ * <p>
+ * The dictionary, tokenizer and search terms are loaded in the background by {@link Startup} so the
+ * window appears immediately. Features are unlocked as the resources they need finish loading.
+ * </p>
  */
 public class Main {
     public static void main(String[] args) {
 
         DataAccess.getInstance();
+        Startup.start();
 
         JFrame frame = new JFrame("Keyword Generator");
         CardLayout cardLayout = new CardLayout();
         frame.setLayout(cardLayout);
 
-        MainPanel mainPanel = MainPanel.getInstance();
-        frame.add(mainPanel);
+        // the main panel is built from the dictionary, show progress until it has loaded
+        frame.add(StartupPanel.getInstance(), "startup");
+        Main.showMainPanel(frame, cardLayout);
  
         frame.setSize(800, 650);
         //frame.setPreferredSize(new Dimension(800, 600));
@@ -80,6 +88,42 @@ public class Main {
         //}
         //DataAccess.writeToJson("testlist", kwlist);
     }
+
+    /**
+     * Shows the main panel once the dictionary has loaded. If it fails to load, the error is shown with the
+     * option to load it again or to exit.
+     *
+     * @param frame the application window
+     * @param cardLayout the layout of the window
+     */
+    static void showMainPanel(JFrame frame, CardLayout cardLayout) {
+        Startup.whenReady(new Runnable() {
+            @Override
+            public void run() {
+                frame.add(MainPanel.getInstance(), "main");
+                cardLayout.show(frame.getContentPane(), "main");
+            }
+        }, StartupTask.DICTIONARY);
+
+        Startup.whenFailed(new Runnable() {
+            @Override
+            public void run() {
+                Throwable failure = Startup.getFailure(StartupTask.DICTIONARY);
+                String[] options = {"Retry", "Exit"};
+                int choice = JOptionPane.showOptionDialog(frame,
+                        "The dictionary could not be loaded:\n" + failure.getMessage(),
+                        "Keyword Generator", JOptionPane.DEFAULT_OPTION, JOptionPane.ERROR_MESSAGE,
+                        null, options, options[0]);
+                if (choice == 0) {
+                    Startup.retry(StartupTask.DICTIONARY);
+                    Main.showMainPanel(frame, cardLayout);
+                }
+                else {
+                    System.exit(1);
+                }
+            }
+        }, StartupTask.DICTIONARY);
+    }
 }
 
 // jpackage --input C:\Users\EmilyXing\Documents\KeywordGenerator\keywordgenerator --name KeywordGeneratorTest --main-jar keywordgenerator.jar --main-class Main --type msi
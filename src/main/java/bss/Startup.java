@@ -0,0 +1,236 @@
+package bss;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Loads the {@link StartupTask} resources in parallel on background threads when the application starts.
+ * <p>
+ * The window is shown straight away. Components that need a resource register with
+ * {@link #whenReady(Runnable, StartupTask...)} to be unlocked on the event dispatch thread once it has
+ * loaded, and components that show progress register with {@link #addListener(Runnable)}. A task that
+ * fails can be loaded again with {@link #retry(StartupTask)}.
+ * </p>
+ */
+public class Startup {
+
+    /** Completion of each task, filled in by {@link #start()}. */
+    static final EnumMap<StartupTask, CompletableFuture<Void>> tasks = new EnumMap<>(StartupTask.class);
+
+    /** Actions run on the event dispatch thread whenever a task finishes. */
+    static final ArrayList<Runnable> listeners = new ArrayList<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Startup() {
+    }
+
+    /**
+     * Starts loading every task on its own background thread. Does nothing if startup has already begun.
+     */
+    public static synchronized void start() {
+        if (!Startup.tasks.isEmpty()) {
+            return;
+        }
+
+        for (StartupTask task : StartupTask.values()) {
+            Startup.tasks.put(task, Startup.submit(task));
+        }
+    }
+
+    /**
+     * Loads a task again after it has failed, for example once the user has fixed a missing file.
+     * <p>
+     * Actions registered with {@link #whenReady(Runnable, StartupTask...)} or
+     * {@link #whenFailed(Runnable, StartupTask)} before the retry belong to the failed attempt and must be
+     * registered again. Does nothing if the task has not failed.
+     * </p>
+     *
+     * @param task the task to load again
+     */
+    public static synchronized void retry(StartupTask task) {
+        if (!Startup.hasFailed(task)) {
+            return;
+        }
+        Startup.tasks.put(task, Startup.submit(task));
+        Startup.fireTaskFinished();
+    }
+
+    /**
+     * Loads a task on a new background thread and notifies the listeners when it finishes.
+     *
+     * @param task the task to load
+     * @return the completion of the task
+     */
+    static CompletableFuture<Void> submit(StartupTask task) {
+        CompletableFuture<Void> future = CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                task.load();
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable r) {
+                Thread thread = new Thread(r, "startup");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        });
+        future.whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void v, Throwable ex) {
+                if (ex != null) {
+                    System.out.println("can't load " + task.description + ": " + ex.getCause());
+                }
+                Startup.fireTaskFinished();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the completion of a task.
+     *
+     * @param task the task
+     * @return the completion of the task, already complete if startup has not begun
+     */
+    static synchronized CompletableFuture<Void> getFuture(StartupTask task) {
+        CompletableFuture<Void> future = Startup.tasks.get(task);
+        return future != null ? future : CompletableFuture.<Void>completedFuture(null);
+    }
+
+    /**
+     * Checks whether a task has finished loading successfully.
+     *
+     * @param task the task
+     * @return true if the resource is ready to use
+     */
+    public static boolean isReady(StartupTask task) {
+        CompletableFuture<Void> future = Startup.getFuture(task);
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    /**
+     * Checks whether a task has failed to load.
+     *
+     * @param task the task
+     * @return true if loading the resource threw an exception
+     */
+    public static boolean hasFailed(StartupTask task) {
+        return Startup.getFuture(task).isCompletedExceptionally();
+    }
+
+    /**
+     * Runs an action on the event dispatch thread once the given tasks have loaded successfully.
+     * <p>
+     * The action always runs later, even if the tasks have already loaded, and never runs if one of them
+     * fails.
+     * </p>
+     *
+     * @param action the action to run
+     * @param required the tasks the action depends on
+     */
+    public static void whenReady(Runnable action, StartupTask... required) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[required.length];
+        for (int i = 0; i < required.length; i++) {
+            futures[i] = Startup.getFuture(required[i]);
+        }
+        CompletableFuture.allOf(futures).thenRun(new Runnable() {
+            @Override
+            public void run() {
+                SwingUtilities.invokeLater(action);
+            }
+        });
+    }
+
+    /**
+     * Runs an action on the event dispatch thread if the given task fails to load.
+     *
+     * @param action the action to run
+     * @param task the task the action watches
+     */
+    public static void whenFailed(Runnable action, StartupTask task) {
+        Startup.getFuture(task).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void v, Throwable ex) {
+                if (ex != null) {
+                    SwingUtilities.invokeLater(action);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the exception that made a task fail to load.
+     *
+     * @param task the task
+     * @return the exception thrown by the task, or null if it has not failed
+     */
+    public static Throwable getFailure(StartupTask task) {
+        CompletableFuture<Void> future = Startup.getFuture(task);
+        if (!future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException ex) {
+            return ex.getCause() != null ? ex.getCause() : ex;
+        } catch (CancellationException ex) {
+            return ex;
+        }
+    }
+
+    /**
+     * Adds an action that is run on the event dispatch thread whenever a task finishes loading.
+     *
+     * @param listener the action to run
+     */
+    public static synchronized void addListener(Runnable listener) {
+        Startup.listeners.add(listener);
+    }
+
+    /**
+     * Notifies the listeners that a task has finished.
+     */
+    static synchronized void fireTaskFinished() {
+        for (Runnable listener : Startup.listeners) {
+            SwingUtilities.invokeLater(listener);
+        }
+    }
+
+    /**
+     * Describes the resources that are still loading or have failed to load.
+     *
+     * @return a status message, or an empty string if every resource is ready
+     */
+    public static String getStatus() {
+        ArrayList<String> loading = new ArrayList<>();
+        ArrayList<String> failed = new ArrayList<>();
+        for (StartupTask task : StartupTask.values()) {
+            if (Startup.hasFailed(task)) {
+                failed.add(task.description);
+            }
+            else if (!Startup.isReady(task)) {
+                loading.add(task.description);
+            }
+        }
+
+        String status = "";
+        if (!loading.isEmpty()) {
+            status += "Loading " + String.join(", ", loading) + "...";
+        }
+        if (!failed.isEmpty()) {
+            status += (status.isEmpty() ? "" : " ") + "Failed to load " + String.join(", ", failed) + ".";
+        }
+        return status;
+    }
+}
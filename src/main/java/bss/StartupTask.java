@@ -0,0 +1,62 @@
+package bss;
+
+import bss.KeywordGeneration.CorpusStatistics;
+import bss.Keywords.AnnotationCache;
+import bss.Keywords.AnnotationProfile;
+import bss.Keywords.Categories;
+import bss.Keywords.Tokenizer;
+
+/**
+ * Enum representing the slow resources that are loaded in the background when the application starts.
+ * <p>
+ * Each task loads its resource the same way the first feature to use it would, so that the feature
+ * finds it ready instead of loading it on the event dispatch thread.
+ * </p>
+ */
+public enum StartupTask {
+
+    /** Reads the dictionary file of every category. */
+    DICTIONARY("dictionary") {
+        @Override
+        protected void load() {
+            Categories.load();
+        }
+    },
+
+    /** Creates the CoreNLP pipelines and loads their annotation caches, bulk profile first. */
+    TOKENIZER("tokenizer") {
+        @Override
+        protected void load() {
+            AnnotationProfile[] profiles = {Tokenizer.getBulkProfile(), Tokenizer.getInteractiveProfile()};
+            for (AnnotationProfile profile : profiles) {
+                AnnotationCache.getInstance(profile);
+                profile.getPipeline();
+            }
+        }
+    },
+
+    /** Reads the search-term dataset and builds its corpus statistics. */
+    SEARCH_TERMS("search terms") {
+        @Override
+        protected void load() {
+            CorpusStatistics.getInstance();
+        }
+    };
+
+    /** Name of the resource shown to the user while it loads. */
+    public final String description;
+
+    /**
+     * Constructs a StartupTask.
+     *
+     * @param description the name of the resource shown to the user
+     */
+    private StartupTask(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Loads the resource. Called once, on a background thread.
+     */
+    protected abstract void load();
+}
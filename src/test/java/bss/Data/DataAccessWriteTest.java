@@ -0,0 +1,107 @@
+package bss.Data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Checks that the background writes of {@link DataAccess} are coalesced and that a failed write keeps the
+ * previous file.
+ */
+public class DataAccessWriteTest {
+
+    /** Folder the files are written to, deleted after each test. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The data directory used before the test. */
+    String previousDirectory;
+
+    @Before
+    public void setUp() {
+        this.previousDirectory = TestData.useDirectory(this.folder.getRoot().getPath() + File.separator);
+    }
+
+    @After
+    public void tearDown() {
+        DataAccess.flush();
+        TestData.useDirectory(this.previousDirectory);
+    }
+
+    /**
+     * Reads a list of numbers written by a test.
+     *
+     * @param fileName the name of the file (without extension)
+     * @return the numbers
+     */
+    @SuppressWarnings("unchecked")
+    static List<Integer> readNumbers(String fileName) {
+        return (List<Integer>) DataAccess.readFromJson(fileName, new TypeToken<ArrayList<Integer>>(){}.getType());
+    }
+
+    @Test
+    public void coalescesWritesQueuedWhileTheWriterIsBusy() throws InterruptedException {
+        // hold the writer thread so that every write below is queued before any of them runs
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DataAccess.writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        started.await();
+
+        int version = DataAccess.getVersion("numbers");
+        for (int i = 1; i <= 5; i++) {
+            DataAccess.writeToJson("numbers", Arrays.asList(i, i * 10));
+        }
+        synchronized (DataAccess.pendingWrites) {
+            assertEquals(1, DataAccess.pendingWrites.size());
+            assertEquals(1, DataAccess.queuedWrites.size());
+        }
+        assertEquals(version + 5, DataAccess.getVersion("numbers"));
+        assertFalse(new File(DataAccess.getPath("numbers") + ".json").exists());
+
+        release.countDown();
+        // the read waits for the pending write
+        assertEquals(Arrays.asList(5, 50), readNumbers("numbers"));
+    }
+
+    @Test
+    public void keepsPreviousFileWhenWriteFails() throws IOException {
+        DataAccess.writeToJson("numbers", Arrays.asList(1, 2, 3));
+        DataAccess.flush();
+
+        // a directory in the way of the temporary file makes the next write fail
+        File temp = this.folder.newFolder("numbers.json.tmp");
+        DataAccess.writeToJson("numbers", Arrays.asList(4, 5, 6));
+        DataAccess.flush();
+
+        assertEquals(Arrays.asList(1, 2, 3), readNumbers("numbers"));
+        // the failed write cleans up its temporary file, which removes the empty directory
+        assertFalse(temp.exists());
+
+        DataAccess.writeToJson("numbers", Arrays.asList(7, 8, 9));
+        assertEquals(Arrays.asList(7, 8, 9), readNumbers("numbers"));
+    }
+}
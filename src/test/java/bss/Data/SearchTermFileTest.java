@@ -0,0 +1,152 @@
+package bss.Data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bss.Keywords.Categories;
+import bss.Keywords.SearchTerm;
+
+/**
+ * Writes search terms to a {@link SearchTermFile} and checks that they are read back unchanged.
+ */
+public class SearchTermFileTest {
+
+    /** Folder the files are written to, deleted after each test. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes search terms to a new file and opens it.
+     *
+     * @param searchTerms the search terms to write
+     * @return the search terms read back from the file
+     * @throws IOException if the file cannot be written or read
+     */
+    SearchTermFile roundTrip(List<SearchTerm> searchTerms) throws IOException {
+        Path path = this.folder.newFile("searchTerms").toPath();
+        SearchTermFile.write(path, searchTerms, SearchTermFile.NO_SOURCE, SearchTermFile.NO_SOURCE);
+        return SearchTermFile.open(path);
+    }
+
+    @Test
+    public void readsBackEveryField() throws IOException {
+        LinkedHashMap<Categories, List<String>> categorized = new LinkedHashMap<>();
+        for (Categories c : Categories.values()) {
+            categorized.put(c, new ArrayList<String>());
+        }
+        categorized.get(Categories.COLOR).add("blau");
+        categorized.get(Categories.PRODUCT_TYPE).addAll(Arrays.asList("ordner", "mappe"));
+        HashMap<String, Double> tf = new HashMap<>();
+        tf.put("blau", 0.25);
+        tf.put("ordner", 0.5);
+        tf.put("mappe", 0.25);
+        SearchTerm searchTerm = new SearchTerm("blau ordner mappe", Arrays.asList("blau", "ordner", "mappe"), categorized, tf,
+                "ordner", "Kampagne äöü", "exact", "Gruppe 1", 7, 3.5, 12.25, 2, 140, 2.0 / 7);
+
+        SearchTermFile file = roundTrip(Collections.singletonList(searchTerm));
+
+        assertEquals(1, file.size());
+        SearchTerm read = file.get(0);
+        assertEquals("blau ordner mappe", read.getKeyword());
+        assertEquals(Arrays.asList("blau", "ordner", "mappe"), read.getTokens());
+        assertEquals(categorized, read.getCategorizedTokens());
+        assertEquals(tf, read.getTF());
+        assertEquals("ordner", read.getKeywordText());
+        assertEquals("Kampagne äöü", read.getCampaignName());
+        assertEquals("exact", read.getKeywordMatchType());
+        assertEquals("Gruppe 1", read.getAdGroupName());
+        assertEquals(7, read.getClicks());
+        assertEquals(3.5, read.getCost(), 0);
+        assertEquals(12.25, read.getSales(), 0);
+        assertEquals(2, read.getOrders());
+        assertEquals(140, read.getImpressions());
+        assertEquals(2.0 / 7, read.getCVR(), 0);
+        assertEquals(2, file.getOrders(0));
+        assertEquals("blau ordner mappe", file.getQuery(0));
+    }
+
+    @Test
+    public void readsBackNullAndEmptyFields() throws IOException {
+        // a search term with no clicks has a CVR of 0 / 0
+        SearchTerm empty = new SearchTerm("", new ArrayList<String>(), null, null,
+                null, null, null, null, 0, 0, 0, 0, 0, Double.NaN);
+        SearchTerm emptyStrings = new SearchTerm("x", Arrays.asList("x"), new LinkedHashMap<Categories, List<String>>(), new HashMap<String, Double>(),
+                "", "", "", "", 1, 0, 0, 0, 1, 0);
+
+        SearchTermFile file = roundTrip(Arrays.asList(empty, emptyStrings));
+
+        assertEquals(2, file.size());
+        SearchTerm read = file.get(0);
+        assertEquals("", read.getKeyword());
+        assertTrue(read.getTokens().isEmpty());
+        assertTrue(read.getTF().isEmpty());
+        for (List<String> categoryTokens : read.getCategorizedTokens().values()) {
+            assertTrue(categoryTokens.isEmpty());
+        }
+        assertNull(read.getKeywordText());
+        assertNull(read.getCampaignName());
+        assertNull(read.getKeywordMatchType());
+        assertNull(read.getAdGroupName());
+        assertTrue(Double.isNaN(read.getCVR()));
+
+        read = file.get(1);
+        assertEquals("x", read.getKeyword());
+        assertEquals(Arrays.asList("x"), read.getTokens());
+        assertEquals("", read.getKeywordText());
+        assertEquals("", read.getCampaignName());
+        assertEquals("", read.getKeywordMatchType());
+        assertEquals("", read.getAdGroupName());
+    }
+
+    @Test
+    public void readsBackUntokenizedSearchTerm() throws IOException {
+        SearchTerm untokenized = new SearchTerm("blau ordner", null, null, null,
+                "ordner", "Kampagne", "exact", "Gruppe", 3, 1.5, 0, 0, 30, 0);
+
+        SearchTermFile file = roundTrip(Arrays.asList(untokenized, untokenized));
+
+        assertEquals(2, file.size());
+        assertEquals("blau ordner", file.get(1).getKeyword());
+        assertTrue(file.get(1).getTokens().isEmpty());
+        assertEquals(3, file.get(1).getClicks());
+    }
+
+    @Test
+    public void readsBackEmptyList() throws IOException {
+        SearchTermFile file = roundTrip(new ArrayList<SearchTerm>());
+
+        assertEquals(0, file.size());
+        assertEquals(0, file.stream().count());
+    }
+
+    @Test
+    public void keepsSourceStamp() throws IOException {
+        Path path = this.folder.newFile("stamped").toPath();
+        SearchTermFile.write(path, new ArrayList<SearchTerm>(), 1234, 5678);
+
+        SearchTermFile file = SearchTermFile.open(path);
+        assertTrue(file.hasSource());
+        assertTrue(file.isCurrent(1234, 5678));
+        assertFalse(file.isCurrent(1234, 5679));
+
+        SearchTermFile.setSource(path, 42, 43);
+        file = SearchTermFile.open(path);
+        assertTrue(file.isCurrent(42, 43));
+        assertFalse(file.isCurrent(1234, 5678));
+    }
+}
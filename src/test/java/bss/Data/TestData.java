@@ -0,0 +1,25 @@
+package bss.Data;
+
+/**
+ * Points {@link DataAccess} at a directory of test data.
+ */
+public class TestData {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private TestData() {
+    }
+
+    /**
+     * Makes {@link DataAccess} read and write the files of a directory.
+     *
+     * @param directory the directory, ending with a separator
+     * @return the directory used before
+     */
+    public static String useDirectory(String directory) {
+        String previous = DataAccess.filePath;
+        DataAccess.filePath = directory;
+        return previous;
+    }
+}
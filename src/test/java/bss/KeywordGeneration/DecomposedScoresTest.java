@@ -0,0 +1,154 @@
+package bss.KeywordGeneration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bss.Data.TestData;
+import bss.Keywords.Categories;
+import bss.Keywords.Keyword;
+import bss.Keywords.KeywordMatch;
+
+/**
+ * Checks that ranking decomposed scores for new weights gives the same results as generating with them.
+ */
+public class DecomposedScoresTest {
+
+    /** Folder the dataset is written to, deleted after each test. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The data directory used before the test. */
+    String previousDirectory;
+
+    /** The keyword the scores are decomposed for. */
+    Keyword keyword;
+
+    /** The decomposed scores of the keyword. */
+    DecomposedScores scores;
+
+    @Before
+    public void setUp() throws IOException {
+        this.previousDirectory = SyntheticCorpus.use(this.folder.newFolder(), SyntheticCorpus.create(3000, 7));
+        KeywordGenerator.setCategoryWeights(categoryWeights(0.5, 0.5, 0.5));
+        KeywordGenerator.setAttributeWeights(attributeWeights(0.5));
+        this.keyword = SyntheticCorpus.keyword("folder", "blue", "paper", "divider");
+        this.scores = KeywordGenerator.decompose(this.keyword, new GenerationProgress());
+    }
+
+    @After
+    public void tearDown() {
+        TestData.useDirectory(this.previousDirectory);
+        CorpusStatistics.invalidate();
+    }
+
+    /**
+     * Builds the weights of the product type, color and material.
+     *
+     * @param productType the weight of the product type
+     * @param color the weight of the color
+     * @param material the weight of the material
+     * @return the category weights
+     */
+    static HashMap<Categories, Double> categoryWeights(double productType, double color, double material) {
+        HashMap<Categories, Double> weights = new HashMap<>();
+        weights.put(Categories.PRODUCT_TYPE, productType);
+        weights.put(Categories.COLOR, color);
+        weights.put(Categories.MATERIAL, material);
+        return weights;
+    }
+
+    /**
+     * Builds the weights of the attributes.
+     *
+     * @param divider the weight of the divider attribute
+     * @return the attribute weights
+     */
+    static HashMap<String, Double> attributeWeights(double divider) {
+        HashMap<String, Double> weights = new HashMap<>();
+        weights.put("divider", divider);
+        return weights;
+    }
+
+    @Test
+    public void ranksLikeGenerating() {
+        double[][] settings = {{0.5, 0.5, 0.5, 0.5}, {1, 0, 0.3, 0.1}, {0, 0, 0, 0}, {0.37, 0.81, 0.05, 1}};
+        for (double[] setting : settings) {
+            HashMap<Categories, Double> categoryWeights = categoryWeights(setting[0], setting[1], setting[2]);
+            HashMap<String, Double> attributeWeights = attributeWeights(setting[3]);
+            ArrayList<KeywordMatch> ranked = this.scores.rank(this.keyword, categoryWeights, attributeWeights, 300);
+
+            KeywordGenerator.setCategoryWeights(categoryWeights);
+            KeywordGenerator.setAttributeWeights(attributeWeights);
+            ArrayList<KeywordMatch> generated = KeywordGenerator.generate(SyntheticCorpus.keyword("folder", "blue", "paper", "divider"), 300, 0);
+
+            assertNotNull(ranked);
+            assertEquals(generated.size(), ranked.size());
+            for (int i = 0; i < generated.size(); i++) {
+                String message = "weights " + Arrays.toString(setting) + ", rank " + i;
+                assertEquals(message, generated.get(i).getScore(), ranked.get(i).getScore(), 1e-12);
+                KeywordMatch match = findTied(generated, ranked.get(i));
+                assertNotNull(message + ": " + ranked.get(i).getKeyword() + " not generated with that score", match);
+                assertEquals(message, match.getTF(), ranked.get(i).getTF());
+            }
+        }
+    }
+
+    /**
+     * Finds a generated match for the same search term as a ranked one with the same score. Scores that tie
+     * exactly can differ in the last digits between the two, so tied matches may swap places.
+     *
+     * @param generated the generated matches
+     * @param ranked the ranked match
+     * @return the generated match, or null if there is none
+     */
+    static KeywordMatch findTied(ArrayList<KeywordMatch> generated, KeywordMatch ranked) {
+        for (KeywordMatch match : generated) {
+            if (match.getKeyword().equals(ranked.getKeyword()) && Math.abs(match.getScore() - ranked.getScore()) <= 1e-12) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void leavesKeywordUnchanged() {
+        Map<String, Double> tf = new HashMap<>(this.keyword.getTF());
+
+        this.scores.rank(this.keyword, categoryWeights(1, 0.2, 0), attributeWeights(0.9), 10);
+
+        assertEquals(tf, this.keyword.getTF());
+    }
+
+    @Test
+    public void refusesOtherKeywordValues() {
+        Keyword otherColor = SyntheticCorpus.keyword("folder", "red", "paper", "divider");
+
+        assertNull(this.scores.rank(otherColor, categoryWeights(0.5, 0.5, 0.5), attributeWeights(0.5), 10));
+        assertNotNull(this.scores.rank(SyntheticCorpus.keyword("folder", "blue", "paper", "divider"), categoryWeights(0.5, 0.5, 0.5), attributeWeights(0.5), 10));
+    }
+
+    @Test
+    public void refusesOtherWeightedCategories() {
+        HashMap<Categories, Double> withoutColor = categoryWeights(0.5, 0.5, 0.5);
+        withoutColor.remove(Categories.COLOR);
+        HashMap<Categories, Double> withQuantity = categoryWeights(0.5, 0.5, 0.5);
+        withQuantity.put(Categories.QUANTITY, 0.5);
+
+        assertNull(this.scores.rank(this.keyword, withoutColor, attributeWeights(0.5), 10));
+        assertNull(this.scores.rank(this.keyword, withQuantity, attributeWeights(0.5), 10));
+        assertNull(this.scores.rank(this.keyword, categoryWeights(0.5, 0.5, 0.5), new HashMap<String, Double>(), 10));
+    }
+}
@@ -0,0 +1,144 @@
+package bss.KeywordGeneration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bss.Data.TestData;
+import bss.Keywords.Categories;
+import bss.Keywords.KeywordMatch;
+
+/**
+ * Checks that scoring on several threads gives the same matches, scores and ranks as scoring on one.
+ */
+public class ParallelScorerTest {
+
+    /** Folder the dataset is written to, deleted after each test. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The data directory used before the test. */
+    String previousDirectory;
+
+    /** The parallelism used before the test. */
+    int previousParallelism;
+
+    @Before
+    public void setUp() throws IOException {
+        this.previousDirectory = SyntheticCorpus.use(this.folder.newFolder(), SyntheticCorpus.create(3000, 42));
+        this.previousParallelism = ParallelScorer.getParallelism();
+
+        HashMap<Categories, Double> categoryWeights = new HashMap<>();
+        categoryWeights.put(Categories.PRODUCT_TYPE, 0.8);
+        categoryWeights.put(Categories.COLOR, 0.4);
+        categoryWeights.put(Categories.MATERIAL, 0.25);
+        KeywordGenerator.setCategoryWeights(categoryWeights);
+        HashMap<String, Double> attributeWeights = new HashMap<>();
+        attributeWeights.put("divider", 0.5);
+        KeywordGenerator.setAttributeWeights(attributeWeights);
+    }
+
+    @After
+    public void tearDown() {
+        ParallelScorer.setParallelism(this.previousParallelism);
+        TestData.useDirectory(this.previousDirectory);
+        CorpusStatistics.invalidate();
+    }
+
+    /**
+     * Generates a page of matches with the given number of scoring threads.
+     *
+     * @param parallelism the number of threads
+     * @param k the number of matches
+     * @param offset the rank of the first match
+     * @return the matches
+     */
+    ArrayList<KeywordMatch> generate(int parallelism, int k, int offset) {
+        ParallelScorer.setParallelism(parallelism);
+        return KeywordGenerator.generate(SyntheticCorpus.keyword("folder", "blue", "paper", "divider"), k, offset);
+    }
+
+    /**
+     * Checks that two lists hold the same search terms in the same order, with exactly the same scores.
+     *
+     * @param expected the matches scored on one thread
+     * @param actual the matches scored on several
+     */
+    static void assertSameMatches(ArrayList<KeywordMatch> expected, ArrayList<KeywordMatch> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("rank " + i, expected.get(i).getKeyword(), actual.get(i).getKeyword());
+            assertEquals("rank " + i, expected.get(i).getScore(), actual.get(i).getScore(), 0);
+            assertEquals("rank " + i, expected.get(i).getOrders(), actual.get(i).getOrders());
+            assertEquals("rank " + i, expected.get(i).getCVR(), actual.get(i).getCVR(), 0);
+        }
+    }
+
+    @Test
+    public void scoresTopMatchesTheSameOnOneOrManyThreads() {
+        ArrayList<KeywordMatch> sequential = generate(1, 200, 0);
+        assertEquals(200, sequential.size());
+        assertTrue(sequential.get(0).getScore() > 0);
+
+        for (int parallelism : new int[] {2, 3, 8}) {
+            assertSameMatches(sequential, generate(parallelism, 200, 0));
+        }
+    }
+
+    @Test
+    public void pagesTheSameOnOneOrManyThreads() {
+        ArrayList<KeywordMatch> sequential = generate(1, 50, 100);
+
+        assertSameMatches(sequential, generate(4, 50, 100));
+        assertSameMatches(sequential, new ArrayList<>(generate(4, 200, 0).subList(100, 150)));
+    }
+
+    @Test
+    public void keepsScoringWhileParallelismChanges() throws InterruptedException {
+        ArrayList<KeywordMatch> sequential = generate(1, 200, 0);
+        ParallelScorer.setParallelism(2);
+
+        // change the parallelism while generations are running on the pools being replaced
+        ArrayList<ArrayList<KeywordMatch>> results = new ArrayList<>();
+        Thread generating = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 20; i++) {
+                    results.add(KeywordGenerator.generate(SyntheticCorpus.keyword("folder", "blue", "paper", "divider"), 200, 0));
+                }
+            }
+        });
+        generating.start();
+        for (int i = 0; generating.isAlive(); i++) {
+            ParallelScorer.setParallelism(2 + i % 3);
+            Thread.sleep(1);
+        }
+        generating.join();
+
+        assertEquals(20, results.size());
+        for (ArrayList<KeywordMatch> result : results) {
+            assertSameMatches(sequential, result);
+        }
+        assertTrue(ParallelScorer.poolUsers.isEmpty());
+    }
+
+    @Test
+    public void ranksEveryCandidateTheSameOnOneOrManyThreads() {
+        ParallelScorer.setParallelism(1);
+        RankedMatches sequential = KeywordGenerator.rank(SyntheticCorpus.keyword("folder", "blue", "paper", "divider"));
+        ParallelScorer.setParallelism(4);
+        RankedMatches parallel = KeywordGenerator.rank(SyntheticCorpus.keyword("folder", "blue", "paper", "divider"));
+
+        assertEquals(sequential.size(), parallel.size());
+        assertSameMatches(sequential.getPage(0, sequential.size()), parallel.getPage(0, parallel.size()));
+    }
+}
@@ -0,0 +1,142 @@
+package bss.KeywordGeneration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import bss.Data.DataAccess;
+import bss.Data.TestData;
+import bss.Keywords.Categories;
+import bss.Keywords.SearchTerm;
+
+/**
+ * A generated search-term dataset with its tokens already categorized, so that keyword generation can be
+ * tested without the dictionary or CoreNLP.
+ */
+class SyntheticCorpus {
+
+    /** Tokens the search terms are made of, by category. */
+    static final LinkedHashMap<Categories, List<String>> VOCABULARY = new LinkedHashMap<>();
+
+    static {
+        VOCABULARY.put(Categories.PRODUCT_TYPE, Arrays.asList("folder", "binder", "envelope"));
+        VOCABULARY.put(Categories.COLOR, Arrays.asList("blue", "red", "green", "black"));
+        VOCABULARY.put(Categories.MATERIAL, Arrays.asList("paper", "plastic", "leather"));
+        VOCABULARY.put(Categories.ATTRIBUTES, Arrays.asList("divider", "pocket", "tab"));
+        VOCABULARY.put(Categories.OTHER, Arrays.asList("office", "school", "cheap", "large", "letter"));
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * Generates search terms from the vocabulary. Every search term has a product type, and some also have
+     * a color, material, attributes and other tokens.
+     *
+     * @param size the number of search terms
+     * @param seed the seed of the random choices
+     * @return the search terms
+     */
+    static ArrayList<SearchTerm> create(int size, long seed) {
+        Random random = new Random(seed);
+        ArrayList<SearchTerm> searchTerms = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            LinkedHashMap<Categories, List<String>> categorized = new LinkedHashMap<>();
+            for (Categories c : Categories.values()) {
+                categorized.put(c, new ArrayList<String>());
+            }
+            pick(random, categorized, Categories.PRODUCT_TYPE, 1.0);
+            pick(random, categorized, Categories.COLOR, 0.6);
+            pick(random, categorized, Categories.MATERIAL, 0.5);
+            pick(random, categorized, Categories.ATTRIBUTES, 0.4);
+            pick(random, categorized, Categories.ATTRIBUTES, 0.2);
+            pick(random, categorized, Categories.OTHER, 0.5);
+            pick(random, categorized, Categories.OTHER, 0.3);
+
+            int clicks = 1 + random.nextInt(100);
+            int orders = random.nextInt(Math.min(clicks, 20) + 1);
+            searchTerms.add(SyntheticCorpus.searchTerm(categorized, orders, clicks));
+        }
+        return searchTerms;
+    }
+
+    /**
+     * Adds a random token of a category to a search term.
+     *
+     * @param random the source of the random choices
+     * @param categorized the tokens of the search term by category
+     * @param c the category
+     * @param probability the probability of adding a token
+     */
+    static void pick(Random random, LinkedHashMap<Categories, List<String>> categorized, Categories c, double probability) {
+        if (random.nextDouble() < probability) {
+            List<String> tokens = VOCABULARY.get(c);
+            categorized.get(c).add(tokens.get(random.nextInt(tokens.size())));
+        }
+    }
+
+    /**
+     * Builds a search term from its categorized tokens, with the query and term frequencies the tokenizer
+     * would give it.
+     *
+     * @param categorized the tokens by category
+     * @param orders the number of orders
+     * @param clicks the number of clicks
+     * @return the search term
+     */
+    static SearchTerm searchTerm(LinkedHashMap<Categories, List<String>> categorized, int orders, int clicks) {
+        ArrayList<String> tokens = new ArrayList<>();
+        for (List<String> categoryTokens : categorized.values()) {
+            tokens.addAll(categoryTokens);
+        }
+        HashMap<String, Double> tf = new HashMap<>();
+        for (String token : tokens) {
+            tf.put(token, tf.getOrDefault(token, 0.0) + 1.0 / tokens.size());
+        }
+        return new SearchTerm(String.join(" ", tokens), tokens, categorized, tf,
+                "", "campaign", "broad", "group", clicks, 0, 0, orders, 10 * clicks, (double) orders / clicks);
+    }
+
+    /**
+     * Builds a keyword to generate search terms for.
+     *
+     * @param productType the product type
+     * @param color the color
+     * @param material the material
+     * @param attribute the attribute
+     * @return the keyword
+     */
+    static SearchTerm keyword(String productType, String color, String material, String attribute) {
+        LinkedHashMap<Categories, List<String>> categorized = new LinkedHashMap<>();
+        for (Categories c : Categories.values()) {
+            categorized.put(c, new ArrayList<String>());
+        }
+        categorized.get(Categories.PRODUCT_TYPE).add(productType);
+        categorized.get(Categories.COLOR).add(color);
+        categorized.get(Categories.MATERIAL).add(material);
+        categorized.get(Categories.ATTRIBUTES).add(attribute);
+        return SyntheticCorpus.searchTerm(categorized, 0, 1);
+    }
+
+    /**
+     * Makes the search terms the dataset {@link CorpusStatistics} is built from.
+     *
+     * @param directory the directory to write the dataset to, which {@link DataAccess} then reads from
+     * @param searchTerms the search terms of the dataset
+     * @return the directory {@link DataAccess} used before
+     */
+    static String use(File directory, List<SearchTerm> searchTerms) {
+        String previous = TestData.useDirectory(directory.getPath() + File.separator);
+        DataAccess.writeSearchTerms(CorpusStatistics.DATASET, searchTerms);
+        DataAccess.flush();
+        CorpusStatistics.invalidate();
+        return previous;
+    }
+}